@@ -13,6 +13,7 @@ import java.io.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.swing.*;
 
@@ -22,10 +23,22 @@ public class AirplaneManager {
     
     // File name for persistent data storage
     public static String DATA_FILE = "airplanes.dat";
+
+    // Debounce delay and staleness bound for background saves
+    public static long SAVE_DELAY_MILLIS = 500;
+    public static long SAVE_MAX_STALENESS_MILLIS = 5000;
+
+    // Writes airplane snapshots off the event thread
+    private final DebouncedWriter<ArrayList<Airplane>> writer = new DebouncedWriter<>(
+        "airplane-writer", SAVE_DELAY_MILLIS, SAVE_MAX_STALENESS_MILLIS, this::writeAirplanes,
+        e -> SwingUtilities.invokeLater(() -> showErrorDialog("Save Error", "Error saving airplane data: " + e.getMessage())));
     
     // Constants for aircraft types
     private static final String[] AIRCRAFT_TYPES = {"Jet", "Prop", "Turboprop"};
 
+    // Airplanes shown per page of search results
+    private static final int RESULTS_PER_PAGE = 25;
+
     /**
      * Default constructor initializes the database
      * and loads any existing airplane data
@@ -68,12 +81,33 @@ public class AirplaneManager {
 
     /**
      * Saves current airplane records to persistent storage
+     * The records are copied now and written in the background, so a burst
+     * of edits results in a single write
      */
     public void saveAirplanes() {
+        ArrayList<Airplane> snapshot = new ArrayList<>(planeDbase.getAllAirplanes().size());
+        for (Airplane a : planeDbase.getAllAirplanes()) {
+            snapshot.add(new Airplane(a.getMake(), a.getModel(), a.getAircraftType(), a.getFuelSize(),
+                                      a.getFuelType(), a.getFuelBurn(), a.getAirspeed(), a.getKey()));
+        }
+        writer.submit(snapshot);
+    }
+
+    /**
+     * Writes any pending airplane changes and waits for them, e.g. before exiting
+     */
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Runs on the writer thread
+    private void writeAirplanes(ArrayList<Airplane> snapshot) throws IOException {
         try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
-            oos.writeObject(new ArrayList<>(planeDbase.getAllAirplanes()));
-        } catch (IOException e) {
-            showErrorDialog("Save Error", "Error saving airplane data: " + e.getMessage());
+            oos.writeObject(snapshot);
         }
     }
 
@@ -213,12 +247,12 @@ public class AirplaneManager {
     }
 
     /**
-     * Searches for airplanes by make, model, or type
-     * Displays results in dialog box
+     * Searches for airplanes by make, model, or type, or by a combination of filters
+     * Displays every match, a page at a time
      */
     public void searchAirplane() {
         try {
-            String[] options = {"By Make", "By Model", "By Type"};
+            String[] options = {"By Make", "By Model", "By Type", "Advanced"};
             int choice = JOptionPane.showOptionDialog(
                 null,
                 "Search by:",
@@ -233,6 +267,10 @@ public class AirplaneManager {
             if (choice == JOptionPane.CLOSED_OPTION) {
                 return;
             }
+            if (choice == 3) {
+                advancedSearch();
+                return;
+            }
 
             String searchTerm = JOptionPane.showInputDialog(
                 null,
@@ -247,18 +285,133 @@ public class AirplaneManager {
                 return;
             }
 
-            Airplane result = planeDbase.searchAirplane(searchTerm.trim(), choice);
-            if (result != null) {
-                JOptionPane.showMessageDialog(null, "Search result:\n" + result);
-            } else {
-                JOptionPane.showMessageDialog(null, "No matching airplane found.");
-            }
+            FleetIndex.Query query = choice == 0 ? new FleetIndex.Query().make(searchTerm.trim()) :
+                                     choice == 1 ? new FleetIndex.Query().model(searchTerm.trim()) :
+                                                   new FleetIndex.Query().type(searchTerm.trim());
+            showQueryResults(query);
 
         } catch (Exception e) {
             showErrorDialog("Error", "Unexpected error searching: " + e.getMessage());
         }
     }
 
+    /**
+     * Asks for a combination of filters, e.g. all jets with a range above 2000 nm
+     */
+    private void advancedSearch() {
+        JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
+        JTextField makeField = new JTextField(20);
+        JTextField modelField = new JTextField(20);
+        String[] typeChoices = new String[AIRCRAFT_TYPES.length + 1];
+        typeChoices[0] = "Any";
+        System.arraycopy(AIRCRAFT_TYPES, 0, typeChoices, 1, AIRCRAFT_TYPES.length);
+        JComboBox<String> typeBox = new JComboBox<>(typeChoices);
+        JComboBox<String> fuelBox = new JComboBox<>(new String[] {"Any", "1 - Aviation fuel", "2 - Jet fuel"});
+        JTextField minRangeField = new JTextField(10);
+        JTextField maxRangeField = new JTextField(10);
+        JTextField minSpeedField = new JTextField(10);
+        JTextField maxSpeedField = new JTextField(10);
+        JTextField minFuelField = new JTextField(10);
+        JTextField maxFuelField = new JTextField(10);
+
+        panel.add(new JLabel("Make:"));
+        panel.add(makeField);
+        panel.add(new JLabel("Model:"));
+        panel.add(modelField);
+        panel.add(new JLabel("Aircraft type:"));
+        panel.add(typeBox);
+        panel.add(new JLabel("Fuel type:"));
+        panel.add(fuelBox);
+        panel.add(new JLabel("Min range (nm):"));
+        panel.add(minRangeField);
+        panel.add(new JLabel("Max range (nm):"));
+        panel.add(maxRangeField);
+        panel.add(new JLabel("Min cruising speed (knots):"));
+        panel.add(minSpeedField);
+        panel.add(new JLabel("Max cruising speed (knots):"));
+        panel.add(maxSpeedField);
+        panel.add(new JLabel("Min fuel capacity (liters):"));
+        panel.add(minFuelField);
+        panel.add(new JLabel("Max fuel capacity (liters):"));
+        panel.add(maxFuelField);
+
+        int result = JOptionPane.showConfirmDialog(null, panel, "Advanced Airplane Search",
+                                                   JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        FleetIndex.Query query = new FleetIndex.Query();
+        try {
+            if (!makeField.getText().trim().isEmpty()) query.make(makeField.getText().trim());
+            if (!modelField.getText().trim().isEmpty()) query.model(modelField.getText().trim());
+            if (typeBox.getSelectedIndex() > 0) query.type((String) typeBox.getSelectedItem());
+            if (fuelBox.getSelectedIndex() > 0) query.fuelType(fuelBox.getSelectedIndex());
+            query.minRange(parseBound(minRangeField, "Min range", Double.NEGATIVE_INFINITY));
+            query.maxRange(parseBound(maxRangeField, "Max range", Double.POSITIVE_INFINITY));
+            query.minAirspeed(parseBound(minSpeedField, "Min cruising speed", Double.NEGATIVE_INFINITY));
+            query.maxAirspeed(parseBound(maxSpeedField, "Max cruising speed", Double.POSITIVE_INFINITY));
+            query.minFuelSize(parseBound(minFuelField, "Min fuel capacity", Double.NEGATIVE_INFINITY));
+            query.maxFuelSize(parseBound(maxFuelField, "Max fuel capacity", Double.POSITIVE_INFINITY));
+        } catch (IllegalArgumentException e) {
+            showErrorDialog("Invalid Input", e.getMessage());
+            return;
+        }
+        showQueryResults(query);
+    }
+
+    // Reads an optional numeric bound; blank means unbounded
+    private static double parseBound(JTextField field, String name, double unbounded) {
+        String text = field.getText().trim();
+        if (text.isEmpty()) {
+            return unbounded;
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a valid number");
+        }
+    }
+
+    /**
+     * Shows the airplanes matching a query, RESULTS_PER_PAGE at a time
+     * @param query The filters to apply
+     */
+    private void showQueryResults(FleetIndex.Query query) {
+        int offset = 0;
+        while (true) {
+            FleetIndex.Page page = planeDbase.query(query, offset, RESULTS_PER_PAGE);
+            if (page.getTotalCount() == 0) {
+                JOptionPane.showMessageDialog(null, "No matching airplane found.");
+                return;
+            }
+
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Showing %d-%d of %d matching airplanes:%n%n",
+                                    offset + 1, offset + page.getAirplanes().size(), page.getTotalCount()));
+            for (Airplane airplane : page.getAirplanes()) {
+                sb.append(airplane).append(String.format("%nRange: %.0f nm%n%n", FleetIndex.range(airplane)));
+            }
+            JTextArea textArea = new JTextArea(sb.toString());
+            textArea.setEditable(false);
+            textArea.setCaretPosition(0);
+            JScrollPane scrollPane = new JScrollPane(textArea);
+            scrollPane.setPreferredSize(new Dimension(600, 400));
+
+            List<String> options = new ArrayList<>();
+            if (offset > 0) options.add("Previous");
+            if (page.hasMore()) options.add("Next");
+            options.add("Close");
+            int choice = JOptionPane.showOptionDialog(null, scrollPane, "Search Results",
+                                                      JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE,
+                                                      null, options.toArray(), "Close");
+            if (choice < 0 || options.get(choice).equals("Close")) {
+                return;
+            }
+            offset += options.get(choice).equals("Next") ? RESULTS_PER_PAGE : -RESULTS_PER_PAGE;
+        }
+    }
+
     /**
      * Modifies existing airplane record
      * Allows partial updates (blank fields keep current values)
@@ -625,12 +778,11 @@ public class AirplaneManager {
                 throw new IllegalArgumentException("Airspeed must be 50-1000 knots");
             }
 
-            // Check for duplicates
-            for (Airplane existing : planeDbase.getAllAirplanes()) {
+            // Check for duplicates among airplanes of the same make, model and type
+            FleetIndex.Query sameModel = new FleetIndex.Query()
+                .make(airplane.getMake()).model(airplane.getModel()).type(airplane.getAircraftType());
+            for (Airplane existing : planeDbase.query(sameModel, 0, Integer.MAX_VALUE).getAirplanes()) {
                 if (existing.getKey() != airplane.getKey() &&
-                    existing.getMake().equalsIgnoreCase(airplane.getMake()) &&
-                    existing.getModel().equalsIgnoreCase(airplane.getModel()) &&
-                    existing.getAircraftType().equalsIgnoreCase(airplane.getAircraftType()) &&
                     Math.abs(existing.getFuelSize() - airplane.getFuelSize()) < 0.001 &&
                     existing.getFuelType() == airplane.getFuelType() &&
                     Math.abs(existing.getFuelBurn() - airplane.getFuelBurn()) < 0.001 &&
@@ -677,6 +829,7 @@ public class AirplaneManager {
                 );
 
                 if (choice == JOptionPane.CLOSED_OPTION || choice == 5) {
+                    flush();
                     JOptionPane.showMessageDialog(null, "Exiting...");
                     return;
                 }
@@ -767,6 +920,8 @@ class Airplane implements Serializable {
  */
 class AirplaneDatabase extends HashMap<String, Airplane> {
     private Map<Integer, Airplane> airplanes = new HashMap<>();
+    // Secondary indexes on make, model, type, airspeed, fuel capacity and range
+    private final FleetIndex index = new FleetIndex();
     private int nextKey = 1;
 
     /**
@@ -775,6 +930,7 @@ class AirplaneDatabase extends HashMap<String, Airplane> {
      */
     public void addAirplane(Airplane airplane) {
         airplanes.put(airplane.getKey(), airplane);
+        index.add(airplane);
     }
 
     /**
@@ -790,17 +946,41 @@ class AirplaneDatabase extends HashMap<String, Airplane> {
      * Searches for airplane by criteria
      * @param searchTerm The term to search for
      * @param searchType 0=make, 1=model, 2=type
-     * @return Matching airplane or null
+     * @return Matching airplane with the lowest key, or null
      */
     public Airplane searchAirplane(String searchTerm, int searchType) {
-        for (Airplane airplane : airplanes.values()) {
-            switch (searchType) {
-                case 0 -> { if (airplane.getMake().equalsIgnoreCase(searchTerm)) return airplane; }
-                case 1 -> { if (airplane.getModel().equalsIgnoreCase(searchTerm)) return airplane; }
-                case 2 -> { if (airplane.getAircraftType().equalsIgnoreCase(searchTerm)) return airplane; }
-            }
+        FleetIndex.Page page = index.query(searchQuery(searchTerm, searchType), 0, 1);
+        return page.getAirplanes().isEmpty() ? null : page.getAirplanes().get(0);
+    }
+
+    /**
+     * Finds every airplane matching a make, model or type
+     * @param searchTerm The term to search for
+     * @param searchType 0=make, 1=model, 2=type
+     * @return All matching airplanes in key order
+     */
+    public List<Airplane> searchAirplanes(String searchTerm, int searchType) {
+        return index.queryAll(searchQuery(searchTerm, searchType));
+    }
+
+    /**
+     * Finds airplanes matching a combination of filters, one page at a time
+     * @param query The filters, e.g. type "Jet" with a minimum range
+     * @param offset Matches to skip
+     * @param limit Most airplanes to return
+     * @return The page of matches in key order, with the total match count
+     */
+    public FleetIndex.Page query(FleetIndex.Query query, int offset, int limit) {
+        return index.query(query, offset, limit);
+    }
+
+    private static FleetIndex.Query searchQuery(String searchTerm, int searchType) {
+        switch (searchType) {
+            case 0: return new FleetIndex.Query().make(searchTerm);
+            case 1: return new FleetIndex.Query().model(searchTerm);
+            case 2: return new FleetIndex.Query().type(searchTerm);
+            default: throw new IllegalArgumentException("Unknown search type: " + searchType);
         }
-        return null;
     }
 
     /**
@@ -809,6 +989,7 @@ class AirplaneDatabase extends HashMap<String, Airplane> {
      */
     public void updateAirplane(Airplane airplane) {
         airplanes.put(airplane.getKey(), airplane);
+        index.update(airplane);
     }
 
     /**
@@ -817,6 +998,7 @@ class AirplaneDatabase extends HashMap<String, Airplane> {
      * @return true if deleted, false if not found
      */
     public boolean deleteAirplane(int key) {
+        index.remove(key);
         return airplanes.remove(key) != null;
     }
 
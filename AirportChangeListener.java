@@ -0,0 +1,27 @@
+/**
+ * Receives notifications when the airport database changes.
+ * Caches and indexes built from airport data register with
+ * AirportDatabase.addChangeListener so they can drop or rebuild stale entries.
+ */
+public interface AirportChangeListener {
+    /**
+     * Called after an airport has been added
+     * @param airport The new airport
+     */
+    default void airportAdded(Airport airport) {
+    }
+
+    /**
+     * Called after an airport record has been updated (any field may have changed)
+     * @param airport The airport with its new values
+     */
+    default void airportUpdated(Airport airport) {
+    }
+
+    /**
+     * Called after an airport has been deleted
+     * @param key Key of the removed airport
+     */
+    default void airportRemoved(int key) {
+    }
+}
@@ -0,0 +1,288 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of airport changes.
+ * Every add, update and delete is appended as one small record instead of
+ * rewriting the whole airport file, so a save costs the same whatever the
+ * database size. Each append is forced to disk before it returns, so an
+ * acknowledged edit survives a crash or power failure. Loading replays the
+ * log over the last snapshot. Compaction moves the current records into a
+ * rotated ".1" file while a new snapshot is written; the rotated file is only
+ * deleted once that snapshot is safely on disk, and is replayed first if it
+ * is still present.
+ *
+ * Record layout: payload length (i32), CRC-32 of the payload (i32), payload.
+ * The payload is an operation byte and an airport key, followed for PUT by
+ * every airport field. A torn record at the end of the log (e.g. after a
+ * crash mid-write) fails its length or checksum and is discarded.
+ */
+public final class AirportChangeLog implements Closeable {
+    // Operation codes
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    // Upper bound on a record payload, used to reject garbage lengths
+    private static final int MAX_PAYLOAD = 1 << 20;
+
+    private final Path rotatedPath;
+    private final FileChannel channel;
+    private int recordCount;
+
+    /**
+     * Opens a log for appending, creating it if needed and dropping any torn tail
+     * @param path The log file
+     * @throws IOException if the log cannot be opened
+     */
+    public AirportChangeLog(Path path) throws IOException {
+        this.rotatedPath = rotatedPath(path);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+        long validLength = scan(channel, null);
+        recordCount = countRecords(channel, validLength);
+        channel.truncate(validLength);
+        channel.position(validLength);
+    }
+
+    /**
+     * Gets the file the current records are compacted into
+     * @param path The log file
+     * @return The rotated log path (the log path with ".1" appended)
+     */
+    public static Path rotatedPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".1");
+    }
+
+    /**
+     * Appends an added or updated airport
+     * @param airport The airport with its current values
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized void appendPut(Airport airport) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(104);
+        frame(putPayload(airport), new DataOutputStream(records));
+        append(records.toByteArray(), 1);
+    }
+
+    /**
+     * Appends a batch of added or updated airports with a single write and force.
+     * Each airport is its own record, so a crash part way through the write
+     * keeps a prefix of the batch; the batch is durable once this returns.
+     * @param airports The airports with their current values
+     * @throws IOException if the records cannot be written
+     */
+    public synchronized void appendPuts(Collection<Airport> airports) throws IOException {
+        if (airports.isEmpty()) {
+            return;
+        }
+        ByteArrayOutputStream records = new ByteArrayOutputStream(airports.size() * 104);
+        DataOutputStream out = new DataOutputStream(records);
+        for (Airport airport : airports) {
+            frame(putPayload(airport), out);
+        }
+        append(records.toByteArray(), airports.size());
+    }
+
+    /**
+     * Appends a deleted airport
+     * @param key Key of the removed airport
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized void appendDelete(int key) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(5);
+        payload.put(DELETE).putInt(key);
+        ByteArrayOutputStream records = new ByteArrayOutputStream(13);
+        frame(payload.array(), new DataOutputStream(records));
+        append(records.toByteArray(), 1);
+    }
+
+    /**
+     * Gets the number of records in the current log
+     * @return Records appended since the last rotation
+     */
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Moves every current record to the rotated file and empties the log.
+     * Records already in the rotated file (from a compaction that did not
+     * finish) are kept ahead of the new ones.
+     * @return The rotated file, to be deleted once a snapshot covering it is written
+     * @throws IOException if the records cannot be moved
+     */
+    public synchronized Path rotate() throws IOException {
+        try (FileChannel rotated = FileChannel.open(rotatedPath, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long size = channel.size();
+            long copied = 0;
+            while (copied < size) {
+                copied += channel.transferTo(copied, size - copied, rotated);
+            }
+            rotated.force(true);
+        }
+        channel.truncate(0);
+        channel.position(0);
+        recordCount = 0;
+        return rotatedPath;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Applies a log's rotated records and then its current records to an airport map
+     * @param path The log file (missing files are treated as empty)
+     * @param airports The snapshot to bring up to date
+     * @return Number of records applied
+     * @throws IOException if a log exists but cannot be read
+     */
+    public static int replay(Path path, Map<Integer, Airport> airports) throws IOException {
+        int applied = 0;
+        for (Path log : new Path[] {rotatedPath(path), path}) {
+            if (Files.exists(log)) {
+                try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+                    Replayer replayer = new Replayer(airports);
+                    scan(channel, replayer);
+                    applied += replayer.count;
+                }
+            }
+        }
+        return applied;
+    }
+
+    // Writes already framed records at the end of the log and forces them to disk
+    private void append(byte[] records, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        // Metadata too, since an append grows the file and the new length must survive
+        channel.force(true);
+        recordCount += count;
+    }
+
+    // Encodes every field of an airport as a PUT payload
+    private static byte[] putPayload(Airport airport) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(PUT);
+        out.writeInt(airport.getKey());
+        out.writeUTF(nullToEmpty(airport.getName()));
+        out.writeUTF(nullToEmpty(airport.getIcao()));
+        out.writeDouble(airport.getLatitude());
+        out.writeDouble(airport.getLongitude());
+        out.writeInt(airport.getFuelType());
+        out.writeUTF(nullToEmpty(airport.getRadioType()));
+        out.writeDouble(airport.getRadioFrequency());
+        return bytes.toByteArray();
+    }
+
+    // Writes one record: payload length, CRC-32 of the payload, payload
+    private static void frame(byte[] payload, DataOutputStream out) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+    }
+
+    // Walks the valid records of a log from the start, applying them if a target is given;
+    // returns the length of the valid prefix
+    private static long scan(FileChannel channel, Replayer target) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(8);
+        while (position + 8 <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            int length = header.getInt(0);
+            int checksum = header.getInt(4);
+            if (length <= 0 || length > MAX_PAYLOAD || position + 8 + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + 8);
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            if (target != null) {
+                target.apply(payload.array());
+            }
+            position += 8 + length;
+        }
+        return position;
+    }
+
+    private static int countRecords(FileChannel channel, long validLength) throws IOException {
+        int count = 0;
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(4);
+        while (position < validLength) {
+            header.clear();
+            readFully(channel, header, position);
+            position += 8 + header.getInt(0);
+            count++;
+        }
+        return count;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of change log");
+            }
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    // Applies decoded records to a map and counts them
+    private static final class Replayer {
+        private final Map<Integer, Airport> airports;
+        private int count;
+
+        Replayer(Map<Integer, Airport> airports) {
+            this.airports = airports;
+        }
+
+        void apply(byte[] payload) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            byte op = in.readByte();
+            int key = in.readInt();
+            if (op == PUT) {
+                String name = in.readUTF();
+                String icao = in.readUTF();
+                double latitude = in.readDouble();
+                double longitude = in.readDouble();
+                int fuelType = in.readInt();
+                String radioType = in.readUTF();
+                double radioFrequency = in.readDouble();
+                airports.put(key, new Airport(name, icao, latitude, longitude, fuelType, key, radioType, radioFrequency));
+            } else if (op == DELETE) {
+                airports.remove(key);
+            } else {
+                throw new IOException("Unknown change log operation: " + op);
+            }
+            count++;
+        }
+    }
+}
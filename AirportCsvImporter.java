@@ -0,0 +1,393 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bulk importer for airports listed in a CSV file.
+ * The file is read line by line and handed out in chunks to worker threads,
+ * which parse each row and check it with AirportValidator; a bounded number
+ * of chunks is in flight at once, so memory does not grow with the file.
+ * Results are collected in file order, where ICAO codes are checked against
+ * the existing airports and earlier rows. Bad rows never stop the import:
+ * each one is recorded with its line number and the reason it was rejected.
+ *
+ * Columns are found by header name, so OurAirports exports can be read as is.
+ * Recognised headers (case-insensitive, first non-empty alias wins):
+ *   name; icao_code, gps_code, ident or icao; latitude_deg, latitude or lat;
+ *   longitude_deg, longitude or lon; fuel_type or fuel; radio_type;
+ *   radio_frequency or frequency_mhz
+ * Fuel and radio columns may be left out if defaults are set. Quoted fields
+ * may contain commas and doubled quotes but not line breaks.
+ */
+public final class AirportCsvImporter {
+    // Rows parsed per task
+    public static final int CHUNK_ROWS = 2048;
+
+    // Header aliases for each field, in order of preference
+    private static final String[] NAME = {"name"};
+    private static final String[] ICAO = {"icao_code", "gps_code", "ident", "icao"};
+    private static final String[] LATITUDE = {"latitude_deg", "latitude", "lat"};
+    private static final String[] LONGITUDE = {"longitude_deg", "longitude", "lon"};
+    private static final String[] FUEL_TYPE = {"fuel_type", "fuel"};
+    private static final String[] RADIO_TYPE = {"radio_type"};
+    private static final String[] RADIO_FREQUENCY = {"radio_frequency", "frequency_mhz"};
+
+    // Upper-case ICAO codes already in the database
+    private final Set<String> existingIcaos;
+    private final ForkJoinPool pool;
+
+    // Values used when the file has no column for a field (null means the column is required)
+    private Integer defaultFuelType;
+    private String defaultRadioType;
+    private Double defaultRadioFrequency;
+
+    /**
+     * Creates an importer that rejects ICAO codes already in use
+     * @param existing The airports currently in the database
+     */
+    public AirportCsvImporter(Collection<Airport> existing) {
+        this(existing, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an importer that parses on the given pool
+     * @param existing The airports currently in the database
+     * @param pool Pool the row parsing and validation run on
+     */
+    public AirportCsvImporter(Collection<Airport> existing, ForkJoinPool pool) {
+        this.existingIcaos = new HashSet<>(existing.size() * 4 / 3 + 1);
+        for (Airport airport : existing) {
+            if (airport.getIcao() != null) {
+                existingIcaos.add(airport.getIcao().toUpperCase(Locale.ROOT));
+            }
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the values used for files without fuel and radio columns
+     * @param fuelType Fuel type code (1-3)
+     * @param radioType UHF, VHF or HF
+     * @param radioFrequency Radio frequency in MHz
+     */
+    public void setDefaults(int fuelType, String radioType, double radioFrequency) {
+        this.defaultFuelType = fuelType;
+        this.defaultRadioType = radioType;
+        this.defaultRadioFrequency = radioFrequency;
+    }
+
+    /**
+     * Reads and checks every row of a CSV file
+     * @param csv The file to import (UTF-8)
+     * @return The accepted airports and the rejected rows
+     * @throws IOException if the file cannot be read or lacks a required column
+     */
+    public Result importFrom(Path csv) throws IOException {
+        try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            return importFrom(reader);
+        }
+    }
+
+    /**
+     * Reads and checks every row of CSV text
+     * @param source The CSV text, starting with a header row
+     * @return The accepted airports and the rejected rows
+     * @throws IOException if the text cannot be read or lacks a required column
+     */
+    public Result importFrom(Reader source) throws IOException {
+        BufferedReader reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IOException("CSV file is empty");
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        Columns columns = new Columns(splitRow(header));
+
+        Result result = new Result();
+        int maxInFlight = pool.getParallelism() * 2;
+        ArrayDeque<CompletableFuture<ParsedRow[]>> inFlight = new ArrayDeque<>();
+        List<String> chunk = new ArrayList<>(CHUNK_ROWS);
+        int lineNumber = 1;
+        int chunkStart = 2;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            chunk.add(line);
+            if (chunk.size() == CHUNK_ROWS) {
+                inFlight.add(submit(columns, chunk, chunkStart));
+                chunk = new ArrayList<>(CHUNK_ROWS);
+                chunkStart = lineNumber + 1;
+                // Keep the reader only a few chunks ahead of the collector
+                while (inFlight.size() > maxInFlight) {
+                    collect(inFlight.poll().join(), result);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            inFlight.add(submit(columns, chunk, chunkStart));
+        }
+        while (!inFlight.isEmpty()) {
+            collect(inFlight.poll().join(), result);
+        }
+        return result;
+    }
+
+    private CompletableFuture<ParsedRow[]> submit(Columns columns, List<String> lines, int firstLine) {
+        return CompletableFuture.supplyAsync(() -> {
+            ParsedRow[] rows = new ParsedRow[lines.size()];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = parse(columns, lines.get(i), firstLine + i);
+            }
+            return rows;
+        }, pool);
+    }
+
+    // Runs on a worker thread; touches nothing shared
+    private ParsedRow parse(Columns columns, String line, int lineNumber) {
+        if (line.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            String[] fields = splitRow(line);
+            String name = columns.text(fields, columns.name, "name");
+            String icao = columns.text(fields, columns.icao, "ICAO code").toUpperCase(Locale.ROOT);
+            double latitude = columns.number(fields, columns.latitude, "Latitude");
+            double longitude = columns.number(fields, columns.longitude, "Longitude");
+            int fuelType = columns.fuelType == null ? defaultFuelType
+                : columns.wholeNumber(fields, columns.fuelType, "Fuel type");
+            String radioType = columns.radioType == null ? defaultRadioType
+                : columns.text(fields, columns.radioType, "radio type");
+            double radioFrequency = columns.radioFrequency == null ? defaultRadioFrequency
+                : columns.number(fields, columns.radioFrequency, "Radio frequency");
+
+            Airport airport = new Airport(name, icao, latitude, longitude, fuelType, 0,
+                                          radioType.toUpperCase(Locale.ROOT), radioFrequency);
+            AirportValidator.validate(airport);
+            return new ParsedRow(lineNumber, airport, null);
+        } catch (IllegalArgumentException e) {
+            return new ParsedRow(lineNumber, null, e.getMessage());
+        }
+    }
+
+    // Runs on the reading thread, in file order
+    private void collect(ParsedRow[] rows, Result result) {
+        for (ParsedRow row : rows) {
+            if (row == null) {
+                continue;
+            }
+            result.rows++;
+            if (row.airport == null) {
+                result.errors.add(new RowError(row.line, row.error));
+            } else if (existingIcaos.contains(row.airport.getIcao())) {
+                result.errors.add(new RowError(row.line, "An airport with ICAO code " +
+                                               row.airport.getIcao() + " already exists."));
+            } else if (!result.icaos.add(row.airport.getIcao())) {
+                result.errors.add(new RowError(row.line, "ICAO code " + row.airport.getIcao() +
+                                               " appears earlier in the file."));
+            } else {
+                result.airports.add(row.airport);
+            }
+        }
+    }
+
+    /**
+     * Splits one CSV row into fields, handling quotes
+     * @param line The row text
+     * @return The unquoted field values
+     * @throws IllegalArgumentException if a quoted field is not closed
+     */
+    static String[] splitRow(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    // Positions of the recognised columns, resolved from the header row
+    private final class Columns {
+        final int[] name;
+        final int[] icao;
+        final int[] latitude;
+        final int[] longitude;
+        final int[] fuelType;
+        final int[] radioType;
+        final int[] radioFrequency;
+
+        Columns(String[] header) throws IOException {
+            Map<String, Integer> positions = new HashMap<>();
+            for (int i = 0; i < header.length; i++) {
+                positions.putIfAbsent(header[i].trim().toLowerCase(Locale.ROOT), i);
+            }
+            name = find(positions, NAME, true);
+            icao = find(positions, ICAO, true);
+            latitude = find(positions, LATITUDE, true);
+            longitude = find(positions, LONGITUDE, true);
+            fuelType = find(positions, FUEL_TYPE, defaultFuelType == null);
+            radioType = find(positions, RADIO_TYPE, defaultRadioType == null);
+            radioFrequency = find(positions, RADIO_FREQUENCY, defaultRadioFrequency == null);
+        }
+
+        private int[] find(Map<String, Integer> positions, String[] aliases, boolean required) throws IOException {
+            List<Integer> found = new ArrayList<>();
+            for (String alias : aliases) {
+                Integer position = positions.get(alias);
+                if (position != null) {
+                    found.add(position);
+                }
+            }
+            if (found.isEmpty()) {
+                if (required) {
+                    throw new IOException("CSV file has no " + String.join("/", aliases) + " column");
+                }
+                return null;
+            }
+            return found.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        String text(String[] fields, int[] positions, String label) {
+            for (int position : positions) {
+                if (position < fields.length && !fields[position].trim().isEmpty()) {
+                    return fields[position].trim();
+                }
+            }
+            throw new IllegalArgumentException("Missing " + label);
+        }
+
+        int wholeNumber(String[] fields, int[] positions, String label) {
+            String value = text(fields, positions, label.toLowerCase(Locale.ROOT));
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(label + " is not a whole number: " + value);
+            }
+        }
+
+        double number(String[] fields, int[] positions, String label) {
+            String value = text(fields, positions, label.toLowerCase(Locale.ROOT));
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(label + " is not a number: " + value);
+            }
+        }
+    }
+
+    // Outcome of parsing one row: an airport or an error message
+    private static final class ParsedRow {
+        final int line;
+        final Airport airport;
+        final String error;
+
+        ParsedRow(int line, Airport airport, String error) {
+            this.line = line;
+            this.airport = airport;
+            this.error = error;
+        }
+    }
+
+    /**
+     * A rejected row
+     */
+    public static final class RowError {
+        private final int line;
+        private final String message;
+
+        RowError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public int getLine() { return line; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+
+    /**
+     * Accepted airports and rejected rows of one import
+     */
+    public static final class Result {
+        private final List<Airport> airports = new ArrayList<>();
+        private final List<RowError> errors = new ArrayList<>();
+        private final Set<String> icaos = new HashSet<>();
+        private int rows;
+
+        /**
+         * Gets the accepted airports, in file order
+         * @return Airports with key 0, to be given real keys when added to the database
+         */
+        public List<Airport> getAirports() { return Collections.unmodifiableList(airports); }
+        public List<RowError> getErrors() { return Collections.unmodifiableList(errors); }
+        public int getRowCount() { return rows; }
+
+        /**
+         * Formats a summary followed by the first rejected rows
+         * @param maxErrors Most error lines to include
+         * @return The report text
+         */
+        public String report(int maxErrors) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Rows read: ").append(rows).append('\n');
+            sb.append("Accepted: ").append(airports.size()).append('\n');
+            sb.append("Rejected: ").append(errors.size()).append('\n');
+            for (int i = 0; i < errors.size() && i < maxErrors; i++) {
+                sb.append('\n').append(errors.get(i));
+            }
+            if (errors.size() > maxErrors) {
+                sb.append("\n... and ").append(errors.size() - maxErrors).append(" more");
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return "Import: " + rows + " rows, " + airports.size() + " accepted, " + errors.size() + " rejected";
+        }
+    }
+}
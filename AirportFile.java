@@ -0,0 +1,338 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary airport file, read into a heap buffer or through a memory map.
+ *
+ * Layout (little endian):
+ *   Header, 32 bytes:  magic "APTC", version (u16), reserved (u16), record count (i32),
+ *                      record size (i32), heap offset (i64), heap length (i64)
+ *   Records, sorted by key, RECORD_SIZE bytes each:
+ *                      key (i32), fuel type (i32), latitude (f64), longitude (f64),
+ *                      radio frequency (f64), name, ICAO and radio type heap offsets (3 x i32),
+ *                      reserved (i32)
+ *   String heap:       per string, length (u16) followed by UTF-8 bytes;
+ *                      a null string is stored as heap offset -1 with no heap entry
+ *
+ * Reading or opening a file only loads it and checks the header; fields are
+ * read straight out of the buffer when asked for. The loaders use read, which
+ * holds no file handle or mapping afterwards, because snapshots replace the
+ * file while readers still hold it and Windows refuses to replace a file that
+ * is still mapped. Files written by ObjectOutputStream are recognised by their
+ * missing magic number and can be converted with migrate.
+ */
+public final class AirportFile {
+    // Format identification
+    public static final int MAGIC = 0x43545041; // "APTC" read as a little-endian int
+    public static final int VERSION = 1;
+
+    // Section sizes and field offsets within a record
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 48;
+    private static final int KEY = 0;
+    private static final int FUEL_TYPE = 4;
+    private static final int LATITUDE = 8;
+    private static final int LONGITUDE = 16;
+    private static final int FREQUENCY = 24;
+    private static final int NAME = 32;
+    private static final int ICAO = 36;
+    private static final int RADIO_TYPE = 40;
+    // Heap offset recorded for a null string
+    private static final int NULL_STRING = -1;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int heapOffset;
+    private final int heapLength;
+
+    private AirportFile(ByteBuffer buffer, int count, int heapOffset, int heapLength) {
+        this.buffer = buffer;
+        this.count = count;
+        this.heapOffset = heapOffset;
+        this.heapLength = heapLength;
+    }
+
+    /**
+     * Checks whether a file is in this binary format
+     * @param path The file to check
+     * @return true if the file starts with the format's magic number
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Keep reading until four bytes arrive or the file ends
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Reads a whole binary airport file into memory
+     * Nothing refers to the file afterwards, so it can be replaced at any time.
+     * @param path The file to read
+     * @return The read file
+     * @throws IOException if the file cannot be read or is not a supported version
+     */
+    public static AirportFile read(Path path) throws IOException {
+        if (Files.size(path) > Integer.MAX_VALUE) {
+            throw new IOException("Airport file too large: " + path);
+        }
+        return parse(ByteBuffer.wrap(Files.readAllBytes(path)), path);
+    }
+
+    /**
+     * Maps a binary airport file into memory
+     * The mapping lasts until the returned object is garbage collected, and
+     * Windows cannot replace a file while it is mapped, so only use this on
+     * files no writer will replace (e.g. not the editor's airports.dat).
+     * @param path The file to open
+     * @return The opened file
+     * @throws IOException if the file cannot be read or is not a supported version
+     */
+    public static AirportFile open(Path path) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Airport file too large: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return parse(mapped, path);
+    }
+
+    // Checks the header of a file's contents and wraps them
+    private static AirportFile parse(ByteBuffer contents, Path path) throws IOException {
+        ByteBuffer buffer = contents.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary airport file: " + path);
+        }
+        int version = buffer.getShort(4) & 0xFFFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported airport file version " + version + ": " + path);
+        }
+        int count = buffer.getInt(8);
+        int recordSize = buffer.getInt(12);
+        long heapOffset = buffer.getLong(16);
+        long heapLength = buffer.getLong(24);
+        if (count < 0 || recordSize != RECORD_SIZE || heapOffset != HEADER_SIZE + (long) count * RECORD_SIZE
+                || heapOffset + heapLength != buffer.limit()) {
+            throw new IOException("Corrupt airport file header: " + path);
+        }
+        return new AirportFile(buffer, count, (int) heapOffset, (int) heapLength);
+    }
+
+    /**
+     * Writes airports to a binary file, replacing it atomically
+     * @param path The file to write
+     * @param airports The airports to store
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, Collection<Airport> airports) throws IOException {
+        Airport[] sorted = airports.toArray(new Airport[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(Airport::getKey));
+
+        // Encode the strings first so the heap size is known
+        byte[][] strings = new byte[sorted.length * 3][];
+        long heapLength = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            strings[i * 3] = encode(sorted[i].getName());
+            strings[i * 3 + 1] = encode(sorted[i].getIcao());
+            strings[i * 3 + 2] = encode(sorted[i].getRadioType());
+            for (int j = 0; j < 3; j++) {
+                if (strings[i * 3 + j] != null) {
+                    heapLength += 2 + strings[i * 3 + j].length;
+                }
+            }
+        }
+        long heapOffset = HEADER_SIZE + (long) sorted.length * RECORD_SIZE;
+        if (heapOffset + heapLength > Integer.MAX_VALUE) {
+            throw new IOException("Too many airports for one file: " + sorted.length);
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) (heapOffset + heapLength)).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0)
+           .putInt(sorted.length).putInt(RECORD_SIZE).putLong(heapOffset).putLong(heapLength);
+
+        int heapPosition = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            Airport airport = sorted[i];
+            int record = HEADER_SIZE + i * RECORD_SIZE;
+            out.putInt(record + KEY, airport.getKey());
+            out.putInt(record + FUEL_TYPE, airport.getFuelType());
+            out.putDouble(record + LATITUDE, airport.getLatitude());
+            out.putDouble(record + LONGITUDE, airport.getLongitude());
+            out.putDouble(record + FREQUENCY, airport.getRadioFrequency());
+            for (int j = 0; j < 3; j++) {
+                byte[] bytes = strings[i * 3 + j];
+                if (bytes == null) {
+                    out.putInt(record + NAME + j * 4, NULL_STRING);
+                    continue;
+                }
+                out.putInt(record + NAME + j * 4, heapPosition);
+                out.position((int) heapOffset + heapPosition);
+                out.putShort((short) bytes.length).put(bytes);
+                heapPosition += 2 + bytes.length;
+            }
+        }
+
+        // Write beside the target, then swap it in so readers never see a partial file
+        Path target = path.toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.clear();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Converts a serialized airport map into the binary format, keeping a backup
+     * @param source Serialized HashMap of airports written by ObjectOutputStream
+     * @param target The binary file to write (may be the same as source)
+     * @return Number of airports converted
+     * @throws IOException if either file cannot be accessed
+     * @throws ClassNotFoundException if the serialized file holds unknown classes
+     */
+    @SuppressWarnings("unchecked")
+    public static int migrate(Path source, Path target) throws IOException, ClassNotFoundException {
+        if (isBinary(source)) {
+            throw new IOException("Already a binary airport file: " + source);
+        }
+        Map<Integer, Airport> airports;
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(source.toFile()))) {
+            Object obj = ois.readObject();
+            if (!(obj instanceof Map)) {
+                throw new IOException("Unexpected object type in airport file: " + obj.getClass());
+            }
+            airports = (Map<Integer, Airport>) obj;
+        }
+        Files.copy(source, source.resolveSibling(source.getFileName() + ".bak"), StandardCopyOption.REPLACE_EXISTING);
+        write(target, airports.values());
+        return airports.size();
+    }
+
+    // Row accessors, read directly from the file's buffer
+    public int size() { return count; }
+    public int key(int row) { return buffer.getInt(record(row) + KEY); }
+    public int fuelType(int row) { return buffer.getInt(record(row) + FUEL_TYPE); }
+    public double latitude(int row) { return buffer.getDouble(record(row) + LATITUDE); }
+    public double longitude(int row) { return buffer.getDouble(record(row) + LONGITUDE); }
+    public double radioFrequency(int row) { return buffer.getDouble(record(row) + FREQUENCY); }
+    public String name(int row) { return string(record(row) + NAME); }
+    public String icao(int row) { return string(record(row) + ICAO); }
+    public String radioType(int row) { return string(record(row) + RADIO_TYPE); }
+
+    /**
+     * Creates an Airport object for one record
+     * @param row The record index
+     * @return A new airport with the record's values
+     */
+    public Airport airport(int row) {
+        return new Airport(name(row), icao(row), latitude(row), longitude(row),
+                           fuelType(row), key(row), radioType(row), radioFrequency(row));
+    }
+
+    /**
+     * Creates Airport objects for every record
+     * @return Modifiable map of airports by key
+     */
+    public Map<Integer, Airport> toMap() {
+        Map<Integer, Airport> airports = new HashMap<>(count * 4 / 3 + 1);
+        for (int row = 0; row < count; row++) {
+            Airport airport = airport(row);
+            airports.put(airport.getKey(), airport);
+        }
+        return airports;
+    }
+
+    private int record(int row) {
+        if (row < 0 || row >= count) {
+            throw new IndexOutOfBoundsException("Airport record " + row + " of " + count);
+        }
+        return HEADER_SIZE + row * RECORD_SIZE;
+    }
+
+    // Decodes a length-prefixed string from the heap, checking it lies inside the heap
+    private String string(int field) {
+        int offset = buffer.getInt(field);
+        if (offset == NULL_STRING) {
+            return null;
+        }
+        if (offset < 0 || offset > heapLength - 2) {
+            throw corrupt("string offset " + offset + " outside the " + heapLength + "-byte heap");
+        }
+        int length = buffer.getShort(heapOffset + offset) & 0xFFFF;
+        if (length > heapLength - 2 - offset) {
+            throw corrupt("string at offset " + offset + " runs past the end of the heap");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(heapOffset + offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static UncheckedIOException corrupt(String detail) {
+        return new UncheckedIOException(new IOException("Corrupt airport file: " + detail));
+    }
+
+    // Encodes a string for the heap, or returns null for a null string
+    private static byte[] encode(String value) throws IOException {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long for airport file: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    /**
+     * Converts serialized airport files to the binary format
+     * Usage: java AirportFile [source.dat [target.dat]]
+     */
+    public static void main(String[] args) {
+        Path source = Paths.get(args.length > 0 ? args[0] : "airports.dat");
+        Path target = args.length > 1 ? Paths.get(args[1]) : source;
+        try {
+            if (isBinary(source)) {
+                System.out.println(source + " is already in binary format (" + read(source).size() + " airports)");
+                return;
+            }
+            int converted = migrate(source, target);
+            System.out.println("Converted " + converted + " airports to " + target +
+                               " (original kept as " + source.getFileName() + ".bak)");
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Migration failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
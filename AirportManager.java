@@ -9,18 +9,28 @@
  */
 import java.awt.*;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.swing.*;
 
 public class AirportManager {
     // Database instance for storing airport records
     public AirportDatabase portDbase;
+    // Type-ahead index over airport names and ICAO codes, kept current by the database
+    public AirportSearchIndex searchIndex;
+    // Number of matches listed while typing a search
+    public static int SEARCH_RESULTS = 20;
 
     /**
      * Default constructor initializes the airport database
      */
     public AirportManager() {
         this.portDbase = new AirportDatabase();
+        this.searchIndex = new AirportSearchIndex(portDbase.getAllAirports());
+        portDbase.addChangeListener(searchIndex);
     }
 
     /**
@@ -141,44 +151,61 @@ public class AirportManager {
 
     /**
      * Searches for airports by name or ICAO code
-     * Displays results in dialog box
+     * Lists the best matches as the user types; partial and misspelled
+     * names are matched too. Shows the details of the chosen airport
      */
     @SuppressWarnings("UseSpecificCatch")
     public void searchAirport() {
         try {
-            // Present search options to user
-            String[] options = {"By Name", "By ICAO"};
-            int choice = JOptionPane.showOptionDialog(
-                null,
-                "Search by:",
-                "Search Airport",
-                JOptionPane.DEFAULT_OPTION,
-                JOptionPane.QUESTION_MESSAGE,
-                null,
-                options,
-                options[0]
-            );
-
-            if (choice == JOptionPane.CLOSED_OPTION) {
+            // Search box with a live list of matches underneath
+            JTextField queryField = new JTextField(30);
+            DefaultListModel<Airport> matches = new DefaultListModel<>();
+            JList<Airport> resultList = new JList<>(matches);
+            resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+            resultList.setCellRenderer(new DefaultListCellRenderer() {
+                @Override
+                public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                              boolean selected, boolean focused) {
+                    Airport airport = (Airport) value;
+                    return super.getListCellRendererComponent(list,
+                        airport.getIcao() + " - " + airport.getName(), index, selected, focused);
+                }
+            });
+            queryField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+                private void refresh() {
+                    matches.clear();
+                    for (Airport airport : searchIndex.search(queryField.getText(), SEARCH_RESULTS)) {
+                        matches.addElement(airport);
+                    }
+                    if (!matches.isEmpty()) {
+                        resultList.setSelectedIndex(0);
+                    }
+                }
+                @Override public void insertUpdate(javax.swing.event.DocumentEvent e) { refresh(); }
+                @Override public void removeUpdate(javax.swing.event.DocumentEvent e) { refresh(); }
+                @Override public void changedUpdate(javax.swing.event.DocumentEvent e) { refresh(); }
+            });
+
+            JPanel panel = new JPanel(new BorderLayout(5, 5));
+            panel.add(new JLabel("Enter airport name or ICAO identifier:"), BorderLayout.NORTH);
+            panel.add(queryField, BorderLayout.CENTER);
+            JScrollPane scrollPane = new JScrollPane(resultList);
+            scrollPane.setPreferredSize(new java.awt.Dimension(450, 300));
+            panel.add(scrollPane, BorderLayout.SOUTH);
+
+            int result = JOptionPane.showConfirmDialog(null, panel, "Search Airport",
+                                                       JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+            if (result != JOptionPane.OK_OPTION) {
                 return;
             }
-
-            // Get search term based on selected option
-            String searchTerm = showInputDialogWithValidation(
-                choice == 0 ? "Enter airport name:" : "Enter ICAO identifier (4 characters):",
-                choice == 0 ? "Airport name cannot be blank" : "ICAO code must be 4 characters",
-                input -> input != null && !input.trim().isEmpty()
-            );
-
-            // Additional validation for ICAO search
-            if (choice == 1 && searchTerm.length() != 4) {
-                throw new IllegalArgumentException("ICAO must be exactly 4 characters");
+            if (queryField.getText().trim().isEmpty()) {
+                throw new IllegalArgumentException("Search term cannot be blank");
             }
 
-            // Perform search and display results
-            Airport result = portDbase.searchAirport(searchTerm);
-            if (result != null) {
-                JOptionPane.showMessageDialog(null, "Search result:\n" + result);
+            // Show the chosen (or best) match
+            Airport selected = resultList.getSelectedValue();
+            if (selected != null) {
+                JOptionPane.showMessageDialog(null, "Search result:\n" + selected);
             } else {
                 JOptionPane.showMessageDialog(null, "No matching airport found.");
             }
@@ -193,7 +220,7 @@ public class AirportManager {
     /**
      * Modifies existing airport record with field-by-field updates
      * Preserves current values when fields are left blank
-     * Shows list of airports with key input on same screen
+     * The airport is picked from a filterable table
      */
     @SuppressWarnings({"UnnecessaryUnboxing", "UseSpecificCatch"})
     public void modifyAirport() {
@@ -205,57 +232,14 @@ public class AirportManager {
                 return;
             }
 
-            // Build formatted list matching the printAirportList format
-            StringBuilder airportList = new StringBuilder();
-            for (Airport airport : allAirports) {
-                airportList.append(airport.toString()).append("\n\n");
-            }
-
-            // Create panel with both the list and input field
-            JPanel panel = new JPanel(new BorderLayout());
-            
-            // Add the airport list in a scrollable text area
-            JTextArea textArea = new JTextArea(airportList.toString());
-            textArea.setEditable(false);
-            JScrollPane scrollPane = new JScrollPane(textArea);
-            scrollPane.setPreferredSize(new java.awt.Dimension(800, 300));
-            
-            // Add the input field for the key
-            JTextField keyField = new JTextField(10);
-            JPanel inputPanel = new JPanel();
-            inputPanel.add(new JLabel("Enter airport key to modify:"));
-            inputPanel.add(keyField);
-            
-            // Add components to main panel
-            panel.add(scrollPane, BorderLayout.CENTER);
-            panel.add(inputPanel, BorderLayout.SOUTH);
-            
-            // Show the combined dialog
-            int result = JOptionPane.showConfirmDialog(
-                null, 
-                panel, 
-                "Modify Airport", 
-                JOptionPane.OK_CANCEL_OPTION, 
-                JOptionPane.PLAIN_MESSAGE
-            );
-            
-            if (result != JOptionPane.OK_OPTION) {
+            // Let the user pick the airport from a filterable table
+            Airport picked = new AirportPicker(allAirports).pick("Modify Airport",
+                "Select the airport to modify (type to filter by key, ICAO code or name):");
+            if (picked == null) {
                 return; // User cancelled
             }
-            
-            // Validate the entered key
-            String keyText = keyField.getText();
-            if (keyText == null || keyText.trim().isEmpty()) {
-                throw new IllegalArgumentException("No key entered");
-            }
-            
-            int key;
-            try {
-                key = Integer.parseInt(keyText.trim());
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("Invalid key format. Please enter a number.");
-            }
-            
+            int key = picked.getKey();
+
             Airport airport = portDbase.getAirport(key);
             if (airport == null) {
                 throw new IllegalArgumentException("Airport with key " + key + " not found");
@@ -407,7 +391,7 @@ public class AirportManager {
 
     /**
      * Deletes an airport record after confirmation
-     * Shows list of airports with key input on same screen
+     * The airport is picked from a filterable table
      */
     @SuppressWarnings("UseSpecificCatch")
     public void deleteAirport() {
@@ -419,57 +403,14 @@ public class AirportManager {
                 return;
             }
 
-            // Build formatted list matching the printAirportList format
-            StringBuilder airportList = new StringBuilder();
-            for (Airport airport : allAirports) {
-                airportList.append(airport.toString()).append("\n\n");
-            }
-
-            // Create panel with both the list and input field
-            JPanel panel = new JPanel(new BorderLayout());
-            
-            // Add the airport list in a scrollable text area
-            JTextArea textArea = new JTextArea(airportList.toString());
-            textArea.setEditable(false);
-            JScrollPane scrollPane = new JScrollPane(textArea);
-            scrollPane.setPreferredSize(new java.awt.Dimension(800, 300));
-            
-            // Add the input field for the key
-            JTextField keyField = new JTextField(10);
-            JPanel inputPanel = new JPanel();
-            inputPanel.add(new JLabel("Enter airport key to delete:"));
-            inputPanel.add(keyField);
-            
-            // Add components to main panel
-            panel.add(scrollPane, BorderLayout.CENTER);
-            panel.add(inputPanel, BorderLayout.SOUTH);
-            
-            // Show the combined dialog
-            int result = JOptionPane.showConfirmDialog(
-                null, 
-                panel, 
-                "Delete Airport", 
-                JOptionPane.OK_CANCEL_OPTION, 
-                JOptionPane.PLAIN_MESSAGE
-            );
-            
-            if (result != JOptionPane.OK_OPTION) {
+            // Let the user pick the airport from a filterable table
+            Airport picked = new AirportPicker(allAirports).pick("Delete Airport",
+                "Select the airport to delete (type to filter by key, ICAO code or name):");
+            if (picked == null) {
                 return; // User cancelled
             }
-            
-            // Validate the entered key
-            String keyText = keyField.getText();
-            if (keyText == null || keyText.trim().isEmpty()) {
-                throw new IllegalArgumentException("No key entered");
-            }
-            
-            int key;
-            try {
-                key = Integer.parseInt(keyText.trim());
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("Invalid key format. Please enter a number.");
-            }
-            
+            int key = picked.getKey();
+
             Airport airport = portDbase.getAirport(key);
             if (airport == null) {
                 throw new IllegalArgumentException("Airport with key " + key + " not found");
@@ -516,7 +457,7 @@ public class AirportManager {
     }
 
     /**
-     * Displays all airport records in a scrollable dialog
+     * Displays all airport records in a filterable table
      */
     @SuppressWarnings("UseSpecificCatch")
     public void printAirportList() {
@@ -527,21 +468,98 @@ public class AirportManager {
                 return;
             }
 
-            // Build formatted list
-            StringBuilder sb = new StringBuilder("Current Airport List:\n");
-            for (Airport airport : airports) {
-                sb.append(airport).append("\n\n");
+            // Display in a filterable table that renders only the visible rows
+            new AirportPicker(airports).browse("Airport List");
+
+        } catch (Exception e) {
+            showErrorDialog("Error", "An error occurred while retrieving airport list: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Imports airports from a CSV file chosen by the user
+     * Rows are parsed and validated in the background; the user sees a report
+     * of rejected rows and confirms before the accepted airports are saved
+     */
+    @SuppressWarnings("UseSpecificCatch")
+    public void importAirports() {
+        try {
+            JFileChooser chooser = new JFileChooser(".");
+            chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV files", "csv"));
+            if (chooser.showOpenDialog(null) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            Path csv = chooser.getSelectedFile().toPath();
+
+            // Files without fuel and radio columns (e.g. OurAirports exports) get values from the user
+            AirportCsvImporter importer = new AirportCsvImporter(portDbase.getAllAirports());
+            if (JOptionPane.showConfirmDialog(null,
+                    "Does the file include fuel_type, radio_type and radio_frequency columns?",
+                    "Import Airports", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+                int fuelType = showIntegerInputDialogWithValidation(
+                    "Fuel type for every imported airport:\n" +
+                    "1 = AVGAS\n2 = JA-1 / JP-8\n3 = Both",
+                    "Fuel type must be 1, 2, or 3",
+                    1, 3,
+                    false
+                );
+                importer.setDefaults(fuelType, "VHF", 122.8); // UNICOM
+            }
+
+            // Parse off the event thread behind a modal progress dialog
+            JDialog progress = new JDialog((Frame) null, "Import Airports", true);
+            JProgressBar bar = new JProgressBar();
+            bar.setIndeterminate(true);
+            JPanel panel = new JPanel(new BorderLayout(5, 5));
+            panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+            panel.add(new JLabel("Reading " + csv.getFileName() + "..."), BorderLayout.NORTH);
+            panel.add(bar, BorderLayout.CENTER);
+            progress.setContentPane(panel);
+            progress.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+            progress.setSize(300, 100);
+            progress.setLocationRelativeTo(null);
+            SwingWorker<AirportCsvImporter.Result, Void> worker = new SwingWorker<>() {
+                @Override
+                protected AirportCsvImporter.Result doInBackground() throws IOException {
+                    return importer.importFrom(csv);
+                }
+
+                @Override
+                protected void done() {
+                    progress.dispose();
+                }
+            };
+            worker.execute();
+            progress.setVisible(true); // done() runs on this thread, so it cannot fire before the dialog opens
+
+            AirportCsvImporter.Result result;
+            try {
+                result = worker.get();
+            } catch (java.util.concurrent.ExecutionException e) {
+                showErrorDialog("Import Error", "Could not read " + csv.getFileName() + ": " + e.getCause().getMessage());
+                return;
             }
 
-            // Display in scrollable pane
-            JTextArea textArea = new JTextArea(sb.toString());
+            // Show the report and let the user decide
+            JTextArea textArea = new JTextArea(result.report(500));
             textArea.setEditable(false);
             JScrollPane scrollPane = new JScrollPane(textArea);
             scrollPane.setPreferredSize(new java.awt.Dimension(500, 400));
-            JOptionPane.showMessageDialog(null, scrollPane, "Airport List", JOptionPane.PLAIN_MESSAGE);
+            if (result.getAirports().isEmpty()) {
+                JOptionPane.showMessageDialog(null, scrollPane, "Import Report", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            if (JOptionPane.showConfirmDialog(null, new Object[] {scrollPane,
+                    "Add " + result.getAirports().size() + " airports?"},
+                    "Import Report", JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
+                java.util.List<Airport> added = portDbase.addAirports(result.getAirports());
+                JOptionPane.showMessageDialog(null, "Imported " + added.size() + " airports.");
+            }
 
+        } catch (IllegalArgumentException e) {
+            showErrorDialog("Input Error", e.getMessage());
         } catch (Exception e) {
-            showErrorDialog("Error", "An error occurred while retrieving airport list: " + e.getMessage());
+            showErrorDialog("Error", "An unexpected error occurred while importing airports: " + e.getMessage());
         }
     }
 
@@ -552,86 +570,7 @@ public class AirportManager {
      */
     private boolean validateAirportData(Airport airport) {
         try {
-            // Validate name
-            if (airport.getName() == null || airport.getName().trim().isEmpty()) {
-                throw new IllegalArgumentException("Airport name cannot be empty");
-            }
-            if (airport.getName().length() < 10) {
-                throw new IllegalArgumentException("Airport name must be at least 10 characters");
-            }
-            if (airport.getName().length() > 40) {
-                throw new IllegalArgumentException("Airport name cannot exceed 40 characters");
-            }
-            
-            // Validate ICAO
-            if (airport.getIcao() == null) {
-                throw new IllegalArgumentException("ICAO code cannot be null");
-            }
-            if (airport.getIcao().length() != 4) {
-                throw new IllegalArgumentException("ICAO code must be exactly 4 characters");
-            }
-            
-            // Validate coordinates
-            if (airport.getLatitude() < -90) {
-                throw new IllegalArgumentException("Latitude must be -90 or higher");
-            }
-            if (airport.getLatitude() > 90) {
-                throw new IllegalArgumentException("Latitude must be 90 or lower");
-            }
-            if (airport.getLongitude() < -180) {
-                throw new IllegalArgumentException("Longitude must be -180 or higher");
-            }
-            if (airport.getLongitude() > 180) {
-                throw new IllegalArgumentException("Longitude must be 180 or lower");
-            }
-            
-            // Validate fuel type
-            if (airport.getFuelType() < 1) {
-                throw new IllegalArgumentException("Fuel type must be 1 or higher");
-            }
-            if (airport.getFuelType() > 3) {
-                throw new IllegalArgumentException("Fuel type must be 3 or lower");
-            }
-            
-            // Validate radio type
-            if (airport.getRadioType() == null || airport.getRadioType().trim().isEmpty()) {
-                throw new IllegalArgumentException("Radio type cannot be empty");
-            }
-            if (!airport.getRadioType().equalsIgnoreCase("UHF") && 
-                !airport.getRadioType().equalsIgnoreCase("VHF") && 
-                !airport.getRadioType().equalsIgnoreCase("HF")) {
-                throw new IllegalArgumentException("Radio type must be UHF, VHF, or HF");
-            }
-            
-            // Validate radio frequency
-            if (airport.getRadioFrequency() <= 0) {
-                throw new IllegalArgumentException("Radio frequency must be positive");
-            }
-            
-            // Validate frequency ranges based on radio type
-            if (airport.getRadioType().equalsIgnoreCase("VHF")) {
-                if (airport.getRadioFrequency() < 118.0) {
-                    throw new IllegalArgumentException("VHF frequency must be 118.0 MHz or higher");
-                }
-                if (airport.getRadioFrequency() > 136.975) {
-                    throw new IllegalArgumentException("VHF frequency must be 136.975 MHz or lower");
-                }
-            } else if (airport.getRadioType().equalsIgnoreCase("UHF")) {
-                if (airport.getRadioFrequency() < 225) {
-                    throw new IllegalArgumentException("UHF frequency must be 225 MHz or higher");
-                }
-                if (airport.getRadioFrequency() > 399.95) {
-                    throw new IllegalArgumentException("UHF frequency must be 399.95 MHz or lower");
-                }
-            } else if (airport.getRadioType().equalsIgnoreCase("HF")) {
-                if (airport.getRadioFrequency() < 2) {
-                    throw new IllegalArgumentException("HF frequency must be 2 MHz or higher");
-                }
-                if (airport.getRadioFrequency() > 30) {
-                    throw new IllegalArgumentException("HF frequency must be 30 MHz or lower");
-                }
-            }
-            
+            AirportValidator.validate(airport);
             return true;
         } catch (IllegalArgumentException e) {
             showErrorDialog("Validation Error", e.getMessage());
@@ -765,6 +704,7 @@ public class AirportManager {
             "Modify Airport",
             "Delete Airport",
             "Print Airport List",
+            "Import Airports (CSV)",
             "Exit"
         };
 
@@ -782,7 +722,8 @@ public class AirportManager {
                 );
 
                 // Handle exit or menu selection
-                if (choice == JOptionPane.CLOSED_OPTION || choice == 5) {
+                if (choice == JOptionPane.CLOSED_OPTION || choice == 6) {
+                    portDbase.flush();
                     JOptionPane.showMessageDialog(null, "Exiting...");
                     return;
                 }
@@ -793,6 +734,7 @@ public class AirportManager {
                     case 2 -> modifyAirport();
                     case 3 -> deleteAirport();
                     case 4 -> printAirportList();
+                    case 5 -> importAirports();
                     default -> JOptionPane.showMessageDialog(null, "Invalid choice. Please try again.");
                 }
             } catch (Exception e) {
@@ -828,6 +770,7 @@ class Airport implements Serializable {
     public final int key;          // Unique identifier
     public String radioType;       // Type of radio communication
     public double radioFrequency;  // Primary radio frequency
+    private transient GeoPoint geo; // Cached trigonometry for distance and heading math
 
     /**
      * Constructs new Airport instance
@@ -842,6 +785,15 @@ class Airport implements Serializable {
         this.key = key;
         this.radioType = radioType;
         this.radioFrequency = radioFrequency;
+        this.geo = new GeoPoint(latitude, longitude);
+    }
+
+    /**
+     * Rebuilds the cached trigonometry when loaded from a file
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.geo = new GeoPoint(latitude, longitude);
     }
 
     // Standard getters and setters
@@ -850,9 +802,9 @@ class Airport implements Serializable {
     public String getIcao() { return icao; }
     public void setIcao(String icao) { this.icao = icao; }
     public double getLatitude() { return latitude; }
-    public void setLatitude(double latitude) { this.latitude = latitude; }
+    public void setLatitude(double latitude) { this.latitude = latitude; this.geo = new GeoPoint(latitude, longitude); }
     public double getLongitude() { return longitude; }
-    public void setLongitude(double longitude) { this.longitude = longitude; }
+    public void setLongitude(double longitude) { this.longitude = longitude; this.geo = new GeoPoint(latitude, longitude); }
     public int getFuelType() { return fuelType; }
     public void setFuelType(int fuelType) { this.fuelType = fuelType; }
     public int getKey() { return key; }
@@ -860,6 +812,7 @@ class Airport implements Serializable {
     public void setRadioType(String radioType) { this.radioType = radioType; }
     public double getRadioFrequency() { return radioFrequency; }
     public void setRadioFrequency(double radioFrequency) { this.radioFrequency = radioFrequency; }
+    public GeoPoint getGeo() { return geo; }
 
     /**
      * Returns formatted string representation
@@ -882,6 +835,31 @@ class AirportDatabase extends HashMap<String, Airport> {
     public Map<Integer, Airport> airports = new HashMap<>();
     public int nextKey = 1;
     public static String DATA_FILE = "airports.dat";
+    // Lookup indexes on normalized name, ICAO code and coordinates, guarded by this
+    private final NormalizedKeyIndex nameIndex = new NormalizedKeyIndex(0);
+    private final NormalizedKeyIndex icaoIndex = new NormalizedKeyIndex(0);
+    private final NormalizedKeyIndex coordinateIndex = new NormalizedKeyIndex(0);
+    // Values each airport is indexed under, since airports are edited in place before updateAirport
+    private final Map<Integer, String[]> indexedValues = new HashMap<>();
+    // Caches and indexes notified of every change
+    private final java.util.List<AirportChangeListener> listeners = new CopyOnWriteArrayList<>();
+    // Log records kept before the log is folded into a new snapshot
+    public static int COMPACT_THRESHOLD = 1000;
+    // Debounce delay and staleness bound for snapshot writes
+    public static long SAVE_DELAY_MILLIS = 2000;
+    public static long SAVE_MAX_STALENESS_MILLIS = 10000;
+    // Private copies of the airports for snapshots, since the live objects are edited in place;
+    // once a snapshot shares the map, the next edit copies it (copy-on-write)
+    private Map<Integer, Airport> frozen = new HashMap<>();
+    private boolean frozenShared;
+    // Write-ahead log of changes since the last snapshot
+    private AirportChangeLog changeLog;
+    // Log rotations so far; a snapshot may only discard the rotated log it was taken with
+    private long rotations;
+    private final DebouncedWriter<Snapshot> writer = new DebouncedWriter<>(
+        "airport-writer", SAVE_DELAY_MILLIS, SAVE_MAX_STALENESS_MILLIS, this::writeSnapshot,
+        e -> SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+            "Error saving airport data: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE)));
 
     /**
      * Constructor loads existing data from file
@@ -891,31 +869,136 @@ class AirportDatabase extends HashMap<String, Airport> {
     }
 
     /**
-     * Loads airports from persistent storage file
+     * Loads airports from persistent storage file, then replays the change log
+     * A file in the old serialized format is converted to the binary format
+     * on load, keeping the original as a .bak file
      */
     public void loadAirports() {
         File file = new File(DATA_FILE);
-        if (file.exists()) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-                airports = (HashMap<Integer, Airport>) ois.readObject();
-                // Set nextKey to highest existing key + 1
-                nextKey = airports.keySet().stream().max(Integer::compare).orElse(0) + 1;
-            } catch (IOException | ClassNotFoundException e) {
-                JOptionPane.showMessageDialog(null, "Error loading airport data: " + e.getMessage(), 
-                                           "Error", JOptionPane.ERROR_MESSAGE);
+        try {
+            if (file.exists()) {
+                if (!AirportFile.isBinary(file.toPath())) {
+                    AirportFile.migrate(file.toPath(), file.toPath());
+                }
+                airports = AirportFile.read(file.toPath()).toMap();
+            }
+            AirportChangeLog.replay(logPath(), airports);
+            if (changeLog == null) {
+                changeLog = new AirportChangeLog(logPath());
             }
+            rebuildIndexes();
+            // Set nextKey to highest existing key + 1
+            nextKey = airports.keySet().stream().max(Integer::compare).orElse(0) + 1;
+        } catch (IOException | ClassNotFoundException e) {
+            JOptionPane.showMessageDialog(null, "Error loading airport data: " + e.getMessage(), 
+                                       "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
     /**
-     * Saves current airport records to file
+     * Saves current airport records to a new snapshot file in the background
+     * The change log is rotated now and discarded once the snapshot is written
      */
     public void saveAirports() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
-            oos.writeObject(airports);
+        // Take the frozen copies as they are now; the next edit copies the map before changing it
+        Map<Integer, Airport> snapshot;
+        synchronized (this) {
+            snapshot = frozen;
+            frozenShared = true;
+        }
+        long generation = 0;
+        if (changeLog != null) {
+            synchronized (changeLog) {
+                try {
+                    changeLog.rotate();
+                } catch (IOException e) {
+                    JOptionPane.showMessageDialog(null, "Error saving airport data: " + e.getMessage(), 
+                                               "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                generation = ++rotations;
+            }
+        }
+        writer.submit(new Snapshot(snapshot.values(), generation));
+    }
+
+    /**
+     * Writes any pending snapshot and waits for it, e.g. before exiting
+     */
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Runs on the writer thread
+    private void writeSnapshot(Snapshot snapshot) throws IOException {
+        AirportFile.write(new File(DATA_FILE).toPath(), snapshot.airports);
+        if (changeLog != null) {
+            synchronized (changeLog) {
+                // Records rotated after this snapshot was taken must survive until their own snapshot lands
+                if (snapshot.generation == rotations) {
+                    Files.deleteIfExists(AirportChangeLog.rotatedPath(logPath()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the change log file that sits next to the data file
+     * @return Path of the write-ahead log
+     */
+    public static Path logPath() {
+        return Paths.get(DATA_FILE + ".log");
+    }
+
+    /**
+     * Records one change in the log, falling back to a full save if the log is unavailable
+     * @param airport The added or updated airport, or null for a delete
+     * @param key Key of the changed airport
+     */
+    private void logChange(Airport airport, int key) {
+        if (changeLog == null) {
+            saveAirports();
+            return;
+        }
+        try {
+            if (airport != null) {
+                changeLog.appendPut(airport);
+            } else {
+                changeLog.appendDelete(key);
+            }
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Error saving airport data: " + e.getMessage(), 
+                                       "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (changeLog.getRecordCount() >= COMPACT_THRESHOLD && writer.isIdle()) {
+            saveAirports();
+        }
+    }
+
+    /**
+     * Records a batch of added airports in the log with one forced write,
+     * falling back to a full save if the log is unavailable
+     * @param added The added airports
+     */
+    private void logBatch(Collection<Airport> added) {
+        if (changeLog == null) {
+            saveAirports();
+            return;
+        }
+        try {
+            changeLog.appendPuts(added);
         } catch (IOException e) {
             JOptionPane.showMessageDialog(null, "Error saving airport data: " + e.getMessage(), 
                                        "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (changeLog.getRecordCount() >= COMPACT_THRESHOLD && writer.isIdle()) {
+            saveAirports();
         }
     }
 
@@ -924,8 +1007,59 @@ class AirportDatabase extends HashMap<String, Airport> {
      * @param airport The airport to add
      */
     public void addAirport(Airport airport) {
-        airports.put(airport.getKey(), airport);
-        saveAirports();
+        synchronized (this) {
+            airports.put(airport.getKey(), airport);
+            index(airport);
+            freeze(airport);
+        }
+        logChange(airport, airport.getKey());
+        for (AirportChangeListener listener : listeners) {
+            listener.airportAdded(airport);
+        }
+    }
+
+    /**
+     * Adds a batch of airports, logging them with a single forced write before returning
+     * @param batch New airports; their keys are ignored and fresh keys assigned
+     * @return The added airports with their assigned keys
+     */
+    public java.util.List<Airport> addAirports(Collection<Airport> batch) {
+        java.util.List<Airport> added = new ArrayList<>(batch.size());
+        for (Airport a : batch) {
+            Airport airport = new Airport(a.getName(), a.getIcao(), a.getLatitude(), a.getLongitude(),
+                                          a.getFuelType(), getNextKey(), a.getRadioType(), a.getRadioFrequency());
+            synchronized (this) {
+                airports.put(airport.getKey(), airport);
+                index(airport);
+                freeze(airport);
+            }
+            added.add(airport);
+        }
+        if (!added.isEmpty()) {
+            logBatch(added);
+            for (Airport airport : added) {
+                for (AirportChangeListener listener : listeners) {
+                    listener.airportAdded(airport);
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Registers a listener to be told about added, updated and deleted airports
+     * @param listener The listener to register
+     */
+    public void addChangeListener(AirportChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a change listener
+     * @param listener The listener to remove
+     */
+    public void removeChangeListener(AirportChangeListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -942,12 +1076,12 @@ class AirportDatabase extends HashMap<String, Airport> {
      * @param searchTerm The term to search for
      * @return Matching airport or null
      */
-    public Airport searchAirport(String searchTerm) {
-        return airports.values().stream()
-            .filter(a -> a.getName().equalsIgnoreCase(searchTerm) || 
-                        a.getIcao().equalsIgnoreCase(searchTerm))
-            .findFirst()
-            .orElse(null);
+    public synchronized Airport searchAirport(String searchTerm) {
+        Integer key = nameIndex.get(normalize(searchTerm));
+        if (key == null) {
+            key = icaoIndex.get(normalize(searchTerm));
+        }
+        return key == null ? null : airports.get(key);
     }
 
     /**
@@ -955,9 +1089,8 @@ class AirportDatabase extends HashMap<String, Airport> {
      * @param name The name to check
      * @return true if exists, false otherwise
      */
-    public boolean airportNameExists(String name) {
-        return airports.values().stream()
-            .anyMatch(a -> a.getName().equalsIgnoreCase(name));
+    public synchronized boolean airportNameExists(String name) {
+        return nameIndex.contains(normalize(name));
     }
 
     /**
@@ -965,9 +1098,8 @@ class AirportDatabase extends HashMap<String, Airport> {
      * @param icao The ICAO code to check
      * @return true if exists, false otherwise
      */
-    public boolean icaoExists(String icao) {
-        return airports.values().stream()
-            .anyMatch(a -> a.getIcao().equalsIgnoreCase(icao));
+    public synchronized boolean icaoExists(String icao) {
+        return icaoIndex.contains(normalize(icao));
     }
 
     /**
@@ -976,9 +1108,72 @@ class AirportDatabase extends HashMap<String, Airport> {
      * @param longitude The longitude to check
      * @return true if exists, false otherwise
      */
-    public boolean coordinatesExist(double latitude, double longitude) {
-        return airports.values().stream()
-            .anyMatch(a -> a.getLatitude() == latitude && a.getLongitude() == longitude);
+    public synchronized boolean coordinatesExist(double latitude, double longitude) {
+        return coordinateIndex.contains(coordinates(latitude, longitude));
+    }
+
+    // Index maintenance; callers hold the lock on this
+
+    private void rebuildIndexes() {
+        synchronized (this) {
+            nameIndex.clear();
+            icaoIndex.clear();
+            coordinateIndex.clear();
+            indexedValues.clear();
+            frozen = new HashMap<>();
+            frozenShared = false;
+            for (Airport airport : airports.values()) {
+                index(airport);
+                freeze(airport);
+            }
+        }
+    }
+
+    private void index(Airport airport) {
+        String[] values = {
+            normalize(airport.getName()),
+            normalize(airport.getIcao()),
+            coordinates(airport.getLatitude(), airport.getLongitude())
+        };
+        nameIndex.add(values[0], airport.getKey());
+        icaoIndex.add(values[1], airport.getKey());
+        coordinateIndex.add(values[2], airport.getKey());
+        indexedValues.put(airport.getKey(), values);
+    }
+
+    private void unindex(int key) {
+        String[] values = indexedValues.remove(key);
+        if (values != null) {
+            nameIndex.remove(values[0], key);
+            icaoIndex.remove(values[1], key);
+            coordinateIndex.remove(values[2], key);
+        }
+    }
+
+    // Stores a private copy of an airport for snapshots
+    private void freeze(Airport a) {
+        writableFrozen().put(a.getKey(), new Airport(a.getName(), a.getIcao(), a.getLatitude(), a.getLongitude(),
+                                                     a.getFuelType(), a.getKey(), a.getRadioType(),
+                                                     a.getRadioFrequency()));
+    }
+
+    // Gets the frozen copies for writing, first copying the map if a snapshot still shares it
+    private Map<Integer, Airport> writableFrozen() {
+        if (frozenShared) {
+            frozen = new HashMap<>(frozen);
+            frozenShared = false;
+        }
+        return frozen;
+    }
+
+    // Case-insensitive form used as an index key (matches equalsIgnoreCase for ordinary text)
+    private static String normalize(String value) {
+        return value == null ? "" : value.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    // Exact coordinate pair as an index key (adding 0.0 folds -0.0 into 0.0, as == does)
+    private static String coordinates(double latitude, double longitude) {
+        return (latitude + 0.0) + "," + (longitude + 0.0);
     }
 
     /**
@@ -986,8 +1181,16 @@ class AirportDatabase extends HashMap<String, Airport> {
      * @param airport The airport with updated values
      */
     public void updateAirport(Airport airport) {
-        airports.put(airport.getKey(), airport);
-        saveAirports();
+        synchronized (this) {
+            airports.put(airport.getKey(), airport);
+            unindex(airport.getKey());
+            index(airport);
+            freeze(airport);
+        }
+        logChange(airport, airport.getKey());
+        for (AirportChangeListener listener : listeners) {
+            listener.airportUpdated(airport);
+        }
     }
 
     /**
@@ -996,8 +1199,20 @@ class AirportDatabase extends HashMap<String, Airport> {
      * @return true if deleted, false
      */
     public boolean deleteAirport(int key) {
-        boolean removed = airports.remove(key) != null;
-        if (removed) saveAirports();
+        boolean removed;
+        synchronized (this) {
+            removed = airports.remove(key) != null;
+            if (removed) {
+                unindex(key);
+                writableFrozen().remove(key);
+            }
+        }
+        if (removed) {
+            logChange(null, key);
+            for (AirportChangeListener listener : listeners) {
+                listener.airportRemoved(key);
+            }
+        }
         return removed;
     }
 
@@ -1016,4 +1231,15 @@ class AirportDatabase extends HashMap<String, Airport> {
     public int getNextKey() {
         return nextKey++;
     }
+
+    // Airports as of a save, tagged with the log rotation it covers (never modified once taken)
+    private static final class Snapshot {
+        final Collection<Airport> airports;
+        final long generation;
+
+        Snapshot(Collection<Airport> airports, long generation) {
+            this.airports = airports;
+            this.generation = generation;
+        }
+    }
 }
\ No newline at end of file
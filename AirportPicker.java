@@ -0,0 +1,127 @@
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Collection;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * Modal dialog listing airports in a filterable table.
+ * Used both to browse the airport list and to pick an airport, replacing
+ * the text dumps that built one string of every airport. Only the rows in
+ * view are rendered, so the dialog opens at once for any database size.
+ * A picker can be reused for several picks over the same airports.
+ */
+public class AirportPicker {
+    private final AirportTableModel model;
+
+    /**
+     * Creates a picker over a set of airports
+     * @param airports The airports to list
+     */
+    public AirportPicker(Collection<Airport> airports) {
+        this.model = new AirportTableModel(airports);
+    }
+
+    /**
+     * Asks the user to choose an airport
+     * @param title Dialog title
+     * @param prompt Text shown above the table
+     * @return The chosen airport, or null if the user cancelled
+     */
+    public Airport pick(String title, String prompt) {
+        return show(title, prompt, true);
+    }
+
+    /**
+     * Shows the airports for browsing only
+     * @param title Dialog title
+     */
+    public void browse(String title) {
+        show(title, "Type to filter by key, ICAO code or name:", false);
+    }
+
+    private Airport show(String title, String prompt, boolean selectable) {
+        model.setFilter("");
+        JDialog dialog = new JDialog((java.awt.Frame) null, title, true);
+        JTable table = new JTable(model);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(2).setPreferredWidth(250);
+
+        JTextField filterField = new JTextField(30);
+        JLabel countLabel = new JLabel();
+        Runnable refresh = () -> {
+            model.setFilter(filterField.getText());
+            countLabel.setText(model.getRowCount() + " of " + model.getTotalCount() + " airports");
+            if (selectable && model.getRowCount() > 0) {
+                table.setRowSelectionInterval(0, 0);
+            }
+        };
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { refresh.run(); }
+            @Override public void removeUpdate(DocumentEvent e) { refresh.run(); }
+            @Override public void changedUpdate(DocumentEvent e) { refresh.run(); }
+        });
+        refresh.run();
+
+        // Chosen airport, set when the user confirms
+        Airport[] chosen = new Airport[1];
+        Runnable confirm = () -> {
+            int row = table.getSelectedRow();
+            if (row >= 0) {
+                chosen[0] = model.getAirportAt(row);
+                dialog.dispose();
+            }
+        };
+
+        JPanel top = new JPanel(new BorderLayout(5, 5));
+        top.add(new JLabel(prompt), BorderLayout.NORTH);
+        top.add(filterField, BorderLayout.CENTER);
+        top.add(countLabel, BorderLayout.EAST);
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        if (selectable) {
+            JButton ok = new JButton("OK");
+            ok.addActionListener(e -> confirm.run());
+            buttons.add(ok);
+            dialog.getRootPane().setDefaultButton(ok);
+            table.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (e.getClickCount() == 2) {
+                        confirm.run();
+                    }
+                }
+            });
+        }
+        JButton close = new JButton(selectable ? "Cancel" : "Close");
+        close.addActionListener(e -> dialog.dispose());
+        buttons.add(close);
+
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(top, BorderLayout.NORTH);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(800, 400));
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(buttons, BorderLayout.SOUTH);
+
+        dialog.setContentPane(panel);
+        dialog.pack();
+        dialog.setLocationRelativeTo(null);
+        dialog.setVisible(true);
+        return chosen[0];
+    }
+}
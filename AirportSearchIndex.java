@@ -0,0 +1,386 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Type-ahead search over airport names and ICAO codes.
+ * Each airport's ICAO code and name are folded to lower-case words and split
+ * into trigrams, with each word padded at the front ("$$k", "$kj", "kjf", ...)
+ * so that one or two typed letters already select the words they begin. A
+ * query is split the same way (its last word is treated as a prefix); an
+ * airport is a candidate when it shares at least 60% of the query's
+ * trigrams, which tolerates typos. Queries of three characters or fewer are
+ * too short to tell a typo from another word, so they are exact prefixes and
+ * must match every trigram. Candidates are ranked by trigram overlap
+ * plus bonuses for exact and prefix matches, and the top k are returned.
+ *
+ * Posting lists hold dense airport slots in sorted order. Candidates are
+ * gathered only from the shortest lists that could still reach the match
+ * threshold; the long lists of common trigrams are probed per candidate.
+ * Register the index with AirportDatabase.addChangeListener and it is
+ * updated airport by airport. All methods are thread-safe.
+ */
+public class AirportSearchIndex implements AirportChangeListener {
+    // Fraction of query trigrams an airport must share to be a candidate
+    private static final double MIN_OVERLAP = 0.6;
+    // Queries up to this many characters are plain prefixes and must match every trigram
+    private static final int EXACT_PREFIX_LENGTH = 3;
+
+    private final Map<Long, SortedInts> postings = new HashMap<>();
+    private final Map<Integer, Integer> slotsByKey = new HashMap<>();
+    private final SortedInts freeSlots = new SortedInts();
+    private Airport[] airports = new Airport[16];
+    private String[] icaos = new String[16];
+    private String[] names = new String[16];
+    private int[] keys = new int[16];
+    // First four characters and lengths of each ICAO code and name, packed so that most
+    // candidates can be ranked or ruled out without loading their strings
+    private long[] icaoHeads = new long[16];
+    private long[] nameHeads = new long[16];
+    private int[] icaoLengths = new int[16];
+    private int[] nameLengths = new int[16];
+    private int slotCount;
+
+    // Per-query scratch, reused between searches
+    private int[] matches = new int[16];
+
+    /**
+     * Builds an index over the given airports
+     * @param initial The airports to index
+     */
+    public AirportSearchIndex(Collection<Airport> initial) {
+        for (Airport airport : initial) {
+            add(airport);
+        }
+    }
+
+    /**
+     * Finds the airports that best match a partial name or ICAO code
+     * @param query Text typed so far
+     * @param limit Most results to return
+     * @return Matching airports, best first
+     */
+    public synchronized List<Airport> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        long[] grams = trigrams(normalized, true);
+
+        // Look up each distinct query trigram and order the lists shortest first
+        List<SortedInts> lists = new ArrayList<>(grams.length);
+        for (long gram : grams) {
+            lists.add(postings.getOrDefault(gram, SortedInts.EMPTY));
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        int needed = normalized.length() <= EXACT_PREFIX_LENGTH ? grams.length
+            : Math.max(1, (int) Math.ceil(grams.length * MIN_OVERLAP));
+
+        // An airport with `needed` matches must appear in one of the first (count - needed + 1) lists
+        int seedLists = grams.length - needed + 1;
+        SortedInts candidates = new SortedInts();
+        for (int i = 0; i < seedLists; i++) {
+            SortedInts list = lists.get(i);
+            for (int j = 0; j < list.size; j++) {
+                int slot = list.values[j];
+                if (matches[slot]++ == 0) {
+                    candidates.append(slot);
+                }
+            }
+        }
+
+        // Count the remaining lists only for candidates, probing long lists instead of walking them
+        for (int i = seedLists; i < lists.size(); i++) {
+            SortedInts list = lists.get(i);
+            if ((long) candidates.size * 20 < list.size) {
+                for (int j = 0; j < candidates.size; j++) {
+                    if (list.contains(candidates.values[j])) {
+                        matches[candidates.values[j]]++;
+                    }
+                }
+            } else {
+                for (int j = 0; j < list.size; j++) {
+                    int slot = list.values[j];
+                    if (matches[slot] > 0) {
+                        matches[slot]++;
+                    }
+                }
+            }
+        }
+
+        // Keep the best `limit` candidates in a min-heap
+        String wordStart = " " + normalized;
+        long queryHead = head(normalized);
+        long headMask = normalized.length() >= 4 ? -1L : ~(-1L >>> (16 * normalized.length()));
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1);
+        for (int j = 0; j < candidates.size; j++) {
+            int slot = candidates.values[j];
+            int count = matches[slot];
+            matches[slot] = 0;
+            if (count < needed) {
+                continue;
+            }
+            double score = (double) count / grams.length + icaoBonus(normalized, queryHead, headMask, slot);
+            // Skip the name comparison when even the best name bonus cannot reach the current top k
+            boolean namePrefix = (nameHeads[slot] & headMask) == queryHead && nameLengths[slot] >= normalized.length();
+            double nameBound = namePrefix ? (nameLengths[slot] == normalized.length() ? 2 : 1) : 0.5;
+            if (best.size() == limit && compare(slot, score + nameBound, best.peek()) <= 0) {
+                continue;
+            }
+            score += nameBonus(normalized, wordStart, slot);
+            if (best.size() < limit) {
+                best.add(new Hit(slot, score));
+            } else if (compare(slot, score, best.peek()) > 0) {
+                best.poll();
+                best.add(new Hit(slot, score));
+            }
+        }
+
+        Airport[] ranked = new Airport[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = airports[best.poll().slot];
+        }
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+
+    /**
+     * Gets the number of indexed airports
+     * @return Indexed airports
+     */
+    public synchronized int size() {
+        return slotsByKey.size();
+    }
+
+    @Override
+    public synchronized void airportAdded(Airport airport) {
+        add(airport);
+    }
+
+    @Override
+    public synchronized void airportUpdated(Airport airport) {
+        remove(airport.getKey());
+        add(airport);
+    }
+
+    @Override
+    public synchronized void airportRemoved(int key) {
+        remove(key);
+    }
+
+    private void add(Airport airport) {
+        remove(airport.getKey());
+        int slot;
+        if (freeSlots.size > 0) {
+            slot = freeSlots.values[--freeSlots.size];
+        } else {
+            slot = slotCount++;
+            if (slot == airports.length) {
+                airports = Arrays.copyOf(airports, slot * 2);
+                icaos = Arrays.copyOf(icaos, slot * 2);
+                names = Arrays.copyOf(names, slot * 2);
+                keys = Arrays.copyOf(keys, slot * 2);
+                icaoHeads = Arrays.copyOf(icaoHeads, slot * 2);
+                nameHeads = Arrays.copyOf(nameHeads, slot * 2);
+                icaoLengths = Arrays.copyOf(icaoLengths, slot * 2);
+                nameLengths = Arrays.copyOf(nameLengths, slot * 2);
+                matches = Arrays.copyOf(matches, slot * 2);
+            }
+        }
+        airports[slot] = airport;
+        icaos[slot] = normalize(airport.getIcao());
+        names[slot] = normalize(airport.getName());
+        keys[slot] = airport.getKey();
+        icaoHeads[slot] = head(icaos[slot]);
+        nameHeads[slot] = head(names[slot]);
+        icaoLengths[slot] = icaos[slot].length();
+        nameLengths[slot] = names[slot].length();
+        slotsByKey.put(airport.getKey(), slot);
+        for (long gram : trigrams(icaos[slot] + " " + names[slot], false)) {
+            postings.computeIfAbsent(gram, g -> new SortedInts()).insert(slot);
+        }
+    }
+
+    private void remove(int key) {
+        Integer slot = slotsByKey.remove(key);
+        if (slot == null) {
+            return;
+        }
+        // The stored text gives the exact trigrams the slot was posted under
+        for (long gram : trigrams(icaos[slot] + " " + names[slot], false)) {
+            SortedInts list = postings.get(gram);
+            list.delete(slot);
+            if (list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+        airports[slot] = null;
+        icaos[slot] = null;
+        names[slot] = null;
+        freeSlots.append(slot);
+    }
+
+    // Rank bonus for an ICAO code equal to or starting with the query; decided from the packed head when it can be
+    private double icaoBonus(String query, long queryHead, long headMask, int slot) {
+        int length = icaoLengths[slot];
+        if (query.length() > length) {
+            return 0;
+        }
+        if (length <= 4) {
+            if ((icaoHeads[slot] & headMask) != queryHead) {
+                return 0;
+            }
+            return length == query.length() ? 3 : 1.5;
+        }
+        return icaos[slot].equals(query) ? 3 : icaos[slot].startsWith(query) ? 1.5 : 0;
+    }
+
+    // Rank bonus for a name equal to, starting with, or containing the query
+    private double nameBonus(String query, String wordStart, int slot) {
+        String name = names[slot];
+        if (name.equals(query)) {
+            return 2;
+        } else if (name.startsWith(query)) {
+            return 1;
+        } else if (name.contains(wordStart)) {
+            return 0.5;
+        } else if (name.contains(query)) {
+            return 0.25;
+        }
+        return 0;
+    }
+
+    // Packs the first four characters of a string, 16 bits each, first character highest
+    private static long head(String text) {
+        long head = 0;
+        for (int i = 0; i < 4; i++) {
+            head = (head << 16) | (i < text.length() ? text.charAt(i) : 0);
+        }
+        return head;
+    }
+
+    /**
+     * Folds text to lower-case words separated by single spaces
+     * @param text The text to fold
+     * @return The normalized text
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+            } else if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
+                sb.append(' ');
+            }
+        }
+        int end = sb.length();
+        if (end > 0 && sb.charAt(end - 1) == ' ') {
+            sb.setLength(end - 1);
+        }
+        return sb.toString();
+    }
+
+    // Distinct padded trigrams of normalized text; a query's last word is left open as a prefix
+    private static long[] trigrams(String text, boolean query) {
+        long[] grams = new long[text.length() * 3 + 3];
+        int count = 0;
+        String[] words = text.split(" ");
+        for (int w = 0; w < words.length; w++) {
+            boolean open = query && w == words.length - 1;
+            String padded = "$$" + words[w] + (open ? "" : "$");
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                long gram = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+                gram *= 0x9E3779B97F4A7C15L; // Bijective mix so Long.hashCode spreads the grams
+                boolean seen = false;
+                for (int j = 0; j < count && !seen; j++) {
+                    seen = grams[j] == gram;
+                }
+                if (!seen) {
+                    grams[count++] = gram;
+                }
+            }
+        }
+        return Arrays.copyOf(grams, count);
+    }
+
+    // Candidate with its rank; compares worst first so a PriorityQueue keeps the worst on top
+    private final class Hit implements Comparable<Hit> {
+        final int slot;
+        final double score;
+
+        Hit(int slot, double score) {
+            this.slot = slot;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            return compare(slot, score, other);
+        }
+    }
+
+    // Orders a scored slot against a hit: higher score, then shorter name, then lower key ranks higher
+    private int compare(int slot, double score, Hit other) {
+        int byScore = Double.compare(score, other.score);
+        if (byScore != 0) {
+            return byScore;
+        }
+        int byLength = Integer.compare(nameLengths[other.slot], nameLengths[slot]);
+        if (byLength != 0) {
+            return byLength;
+        }
+        return Integer.compare(keys[other.slot], keys[slot]);
+    }
+
+    // Growable int array, kept in ascending order when used as a posting list
+    private static final class SortedInts {
+        static final SortedInts EMPTY = new SortedInts();
+
+        int[] values = new int[4];
+        int size;
+
+        void append(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void insert(int value) {
+            if (size == 0 || values[size - 1] < value) {
+                append(value);
+                return;
+            }
+            int at = Arrays.binarySearch(values, 0, size, value);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, at, values, at + 1, size - at);
+            values[at] = value;
+            size++;
+        }
+
+        void delete(int value) {
+            int at = Arrays.binarySearch(values, 0, size, value);
+            if (at >= 0) {
+                System.arraycopy(values, at + 1, values, at, size - at - 1);
+                size--;
+            }
+        }
+
+        boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Spatial index over airports for great-circle range queries.
+ * Each airport is stored as a 3D unit vector in an implicit k-d tree, so a
+ * "within N nautical miles" query only walks the branches whose splitting
+ * planes can still reach the search sphere instead of scanning every airport.
+ * Matches can be reported as Airport objects or as rows of the AirportStore
+ * the index was built from, for callers that keep per-row arrays.
+ */
+public class AirportSpatialIndex {
+    // Slack added to the chord radius so rounding never drops a boundary airport
+    private static final double CHORD_EPSILON = 1e-9;
+
+    private final AirportStore store;
+    // Store rows and their unit vectors, stored in k-d tree order
+    private final int[] rows;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+
+    /**
+     * Builds the index from a collection of airports
+     * @param source The airports to index
+     */
+    public AirportSpatialIndex(Collection<Airport> source) {
+        this(AirportStore.from(source));
+    }
+
+    /**
+     * Builds the index over the rows of a columnar airport store
+     * @param store The store whose airports should be indexed
+     */
+    public AirportSpatialIndex(AirportStore store) {
+        int n = store.size();
+        this.store = store;
+        this.rows = new int[n];
+        this.xs = Arrays.copyOf(store.xs(), n);
+        this.ys = Arrays.copyOf(store.ys(), n);
+        this.zs = Arrays.copyOf(store.zs(), n);
+        for (int i = 0; i < n; i++) {
+            rows[i] = i;
+        }
+        build(0, n, 0);
+    }
+
+    /**
+     * Gets the number of indexed airports
+     * @return The airport count
+     */
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Gets the store whose rows this index reports
+     * @return The indexed airport store
+     */
+    public AirportStore getStore() {
+        return store;
+    }
+
+    /**
+     * Finds every airport within a great-circle range of the given airport
+     * @param center The airport to search around (included if indexed)
+     * @param rangeNm The search radius in nautical miles
+     * @return List of airports inside the range
+     */
+    public List<Airport> withinRange(Airport center, double rangeNm) {
+        List<Airport> result = new ArrayList<>();
+        withinRange(center, rangeNm, result::add);
+        return result;
+    }
+
+    /**
+     * Visits every airport within a great-circle range of the given airport
+     * @param center The airport to search around (included if indexed)
+     * @param rangeNm The search radius in nautical miles
+     * @param visitor Callback invoked once per airport inside the range
+     */
+    public void withinRange(Airport center, double rangeNm, Consumer<Airport> visitor) {
+        withinRange(center.getGeo(), rangeNm, (IntConsumer) row -> visitor.accept(store.airport(row)));
+    }
+
+    /**
+     * Collects the store rows of every airport within a great-circle range of a point
+     * @param center The point to search around
+     * @param rangeNm The search radius in nautical miles
+     * @param out Receives matching row indexes (length at least size())
+     * @return Number of rows written to out
+     */
+    public int withinRange(GeoPoint center, double rangeNm, int[] out) {
+        RowCollector collector = new RowCollector(out);
+        withinRange(center, rangeNm, collector);
+        return collector.count;
+    }
+
+    /**
+     * Visits the store row of every airport within a great-circle range of a point
+     * @param center The point to search around
+     * @param rangeNm The search radius in nautical miles
+     * @param rowVisitor Callback invoked once per matching store row
+     */
+    public void withinRange(GeoPoint center, double rangeNm, IntConsumer rowVisitor) {
+        // Convert the surface range into a straight-line chord between unit vectors
+        double angle = rangeNm / GreatCircle.EARTH_RADIUS_NM;
+        double chord = angle >= Math.PI ? 2.0 : 2.0 * Math.sin(angle / 2.0);
+        chord += CHORD_EPSILON;
+
+        search(0, rows.length, 0, center.x, center.y, center.z, chord, chord * chord, rowVisitor);
+    }
+
+    /**
+     * Collects the airports in the great-circle corridor of a leg.
+     * A candidate must lie within rangeNm of the start, no further than
+     * maxCrossTrackNm to either side of the great circle towards the end point,
+     * and ahead of the start along that circle. Rows are filtered in place in
+     * no particular order; the refuel search ranks them itself.
+     * @param from Start of the leg (the current airport)
+     * @param to End of the leg (the destination)
+     * @param maxCrossTrackNm Maximum distance from the leg's great circle (nm)
+     * @param rangeNm Maximum distance from the start (nm)
+     * @param out Receives matching row indexes (length at least size())
+     * @return Number of rows written to out
+     */
+    public int corridor(GeoPoint from, GeoPoint to, double maxCrossTrackNm, double rangeNm, int[] out) {
+        // Pole of the leg's great circle, and the unit tangent at the start pointing towards the end
+        double nx = from.y * to.z - from.z * to.y;
+        double ny = from.z * to.x - from.x * to.z;
+        double nz = from.x * to.y - from.y * to.x;
+        double norm = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        int count = withinRange(from, rangeNm, out);
+        if (norm < 1e-12) {
+            return count; // Coincident or antipodal end points have no unique corridor
+        }
+        nx /= norm;
+        ny /= norm;
+        nz /= norm;
+        double ux = ny * from.z - nz * from.y;
+        double uy = nz * from.x - nx * from.z;
+        double uz = nx * from.y - ny * from.x;
+
+        // Cross-track bound as the sine of the angle off the circle
+        double maxSin = Math.sin(Math.min(Math.PI / 2, maxCrossTrackNm / GreatCircle.EARTH_RADIUS_NM));
+        double[] xs = store.xs();
+        double[] ys = store.ys();
+        double[] zs = store.zs();
+
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int row = out[i];
+            double px = xs[row];
+            double py = ys[row];
+            double pz = zs[row];
+            if (Math.abs(px * nx + py * ny + pz * nz) > maxSin) {
+                continue;
+            }
+            // Ahead of the start along the circle: positive component along the tangent,
+            // or directly behind at the antipode (an along-track angle of pi)
+            double ahead = px * ux + py * uy + pz * uz;
+            if (ahead < 0 || (ahead == 0 && px * from.x + py * from.y + pz * from.z >= 0)) {
+                continue;
+            }
+            out[kept++] = row;
+        }
+        return kept;
+    }
+
+    // Recursively arranges [lo, hi) so each midpoint splits its range on the current axis
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, axis(depth));
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    // Walks the subtree [lo, hi), pruning halves that lie entirely outside the chord radius
+    private void search(int lo, int hi, int depth, double qx, double qy, double qz,
+                        double chord, double chordSq, IntConsumer visitor) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            double dx = xs[mid] - qx;
+            double dy = ys[mid] - qy;
+            double dz = zs[mid] - qz;
+            if (dx * dx + dy * dy + dz * dz <= chordSq) {
+                visitor.accept(rows[mid]);
+            }
+
+            // Signed distance from the query point to the splitting plane
+            int axis = axis(depth);
+            double diff = coordinate(axis, qx, qy, qz) - coordinate(axis, mid);
+            boolean goLeft = diff <= chord;
+            boolean goRight = diff >= -chord;
+
+            if (goLeft && goRight) {
+                search(lo, mid, depth + 1, qx, qy, qz, chord, chordSq, visitor);
+                lo = mid + 1;
+            } else if (goLeft) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+            depth++;
+        }
+    }
+
+    // Quickselect on one axis so position k holds the median of [lo, hi]
+    private void select(int lo, int hi, int k, int axis) {
+        while (hi > lo) {
+            double pivot = coordinate(axis, (lo + hi) >>> 1);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coordinate(axis, i) < pivot) i++;
+                while (coordinate(axis, j) > pivot) j--;
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static int axis(int depth) {
+        return depth % 3;
+    }
+
+    private double coordinate(int axis, int index) {
+        switch (axis) {
+            case 0: return xs[index];
+            case 1: return ys[index];
+            default: return zs[index];
+        }
+    }
+
+    private static double coordinate(int axis, double x, double y, double z) {
+        switch (axis) {
+            case 0: return x;
+            case 1: return y;
+            default: return z;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int r = rows[i]; rows[i] = rows[j]; rows[j] = r;
+        double t = xs[i]; xs[i] = xs[j]; xs[j] = t;
+        t = ys[i]; ys[i] = ys[j]; ys[j] = t;
+        t = zs[i]; zs[i] = zs[j]; zs[j] = t;
+    }
+
+    // Appends visited rows to a caller-supplied array
+    private static final class RowCollector implements IntConsumer {
+        private final int[] out;
+        private int count;
+
+        RowCollector(int[] out) {
+            this.out = out;
+        }
+
+        @Override
+        public void accept(int row) {
+            out[count++] = row;
+        }
+    }
+}
@@ -0,0 +1,329 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+
+/**
+ * Columnar, primitive-backed copy of the airport database.
+ * Each attribute the planner scans lives in its own parallel array, ordered by
+ * airport key, so range and nearest-neighbor scans stream through contiguous
+ * doubles instead of chasing boxed keys and Airport objects around the heap.
+ * Fuel types use the same codes as Airport (1 = AVGAS, 2 = Jet, 3 = both), so
+ * an airport sells an airplane's fuel when (airportFuel & airplaneFuel) != 0.
+ * A store read from an AirportFile fills its columns straight from the file's
+ * buffer and only creates an Airport object the first time a row is asked for,
+ * so planning touches objects only for the airports a search actually visits.
+ */
+public final class AirportStore {
+    private final int[] keys;           // Sorted airport keys
+    private final double[] latitudes;   // Degrees
+    private final double[] longitudes;  // Degrees
+    private final double[] xs;          // Unit vector components
+    private final double[] ys;
+    private final double[] zs;
+    private final byte[] fuelTypes;
+    // Airport objects for callers that need names, created on first use when loader is set
+    private final AtomicReferenceArray<Airport> airports;
+    private final IntFunction<Airport> loader;
+    private Map<Integer, Airport> mapView;
+
+    private AirportStore(Airport[] sorted) {
+        int n = sorted.length;
+        this.airports = new AtomicReferenceArray<>(sorted);
+        this.loader = null;
+        this.keys = new int[n];
+        this.latitudes = new double[n];
+        this.longitudes = new double[n];
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.zs = new double[n];
+        this.fuelTypes = new byte[n];
+
+        for (int i = 0; i < n; i++) {
+            Airport airport = sorted[i];
+            GeoPoint geo = airport.getGeo();
+            keys[i] = airport.getKey();
+            latitudes[i] = airport.getLatitude();
+            longitudes[i] = airport.getLongitude();
+            xs[i] = geo.x;
+            ys[i] = geo.y;
+            zs[i] = geo.z;
+            fuelTypes[i] = (byte) airport.getFuelType();
+        }
+    }
+
+    // Reads the columns straight out of a mapped airport file (records are already sorted by key)
+    private AirportStore(AirportFile file) {
+        int n = file.size();
+        this.airports = new AtomicReferenceArray<>(n);
+        this.loader = file::airport;
+        this.keys = new int[n];
+        this.latitudes = new double[n];
+        this.longitudes = new double[n];
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.zs = new double[n];
+        this.fuelTypes = new byte[n];
+
+        for (int i = 0; i < n; i++) {
+            double latitude = file.latitude(i);
+            double longitude = file.longitude(i);
+            // Same unit vector GeoPoint builds, without creating one per row
+            double latRad = Math.toRadians(latitude);
+            double lonRad = Math.toRadians(longitude);
+            double cosLat = Math.cos(latRad);
+            keys[i] = file.key(i);
+            latitudes[i] = latitude;
+            longitudes[i] = longitude;
+            xs[i] = cosLat * Math.cos(lonRad);
+            ys[i] = cosLat * Math.sin(lonRad);
+            zs[i] = Math.sin(latRad);
+            fuelTypes[i] = (byte) file.fuelType(i);
+        }
+    }
+
+    // Copies the selected rows of another store, fetching their airports from it on first use
+    private AirportStore(AirportStore source, int[] rows, int n) {
+        int[] sourceRows = Arrays.copyOf(rows, n);
+        this.airports = new AtomicReferenceArray<>(n);
+        this.loader = row -> source.airport(sourceRows[row]);
+        this.keys = new int[n];
+        this.latitudes = new double[n];
+        this.longitudes = new double[n];
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.zs = new double[n];
+        this.fuelTypes = new byte[n];
+
+        for (int i = 0; i < n; i++) {
+            int row = sourceRows[i];
+            keys[i] = source.keys[row];
+            latitudes[i] = source.latitudes[row];
+            longitudes[i] = source.longitudes[row];
+            xs[i] = source.xs[row];
+            ys[i] = source.ys[row];
+            zs[i] = source.zs[row];
+            fuelTypes[i] = source.fuelTypes[row];
+        }
+    }
+
+    /**
+     * Builds a store directly from a binary airport file
+     * @param file The opened airport file
+     * @return A new store holding every airport in the file
+     */
+    public static AirportStore from(AirportFile file) {
+        return new AirportStore(file);
+    }
+
+    /**
+     * Builds a store from the airport map produced by the loaders
+     * @param airports Airports by key
+     * @return A new store holding every airport
+     */
+    public static AirportStore from(Map<Integer, Airport> airports) {
+        return from(airports.values());
+    }
+
+    /**
+     * Builds a store from a collection of airports
+     * @param airports The airports to store
+     * @return A new store holding every airport
+     */
+    public static AirportStore from(Collection<Airport> airports) {
+        Airport[] sorted = airports.toArray(new Airport[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(Airport::getKey));
+        return new AirportStore(sorted);
+    }
+
+    /**
+     * Builds a store of the airports that sell an airplane's fuel
+     * @param fuelType Airplane fuel type (1 or 2)
+     * @return A new store sharing this store's airports, still ordered by key
+     */
+    public AirportStore withFuel(int fuelType) {
+        int[] rows = new int[keys.length];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if ((fuelTypes[i] & fuelType) != 0) {
+                rows[count++] = i;
+            }
+        }
+        return new AirportStore(this, rows, count);
+    }
+
+    /**
+     * Gets a read-only map view of the store, keyed by airport key
+     * Lookups binary-search the key column; airports are created as they are read.
+     * @return Unmodifiable map of airports by key
+     */
+    public Map<Integer, Airport> asMap() {
+        Map<Integer, Airport> view = mapView;
+        if (view == null) {
+            view = new MapView();
+            mapView = view; // Racing threads may each build one; any of them will do
+        }
+        return view;
+    }
+
+    // Column accessors
+    public int size() { return keys.length; }
+    public int key(int index) { return keys[index]; }
+    public double latitude(int index) { return latitudes[index]; }
+    public double longitude(int index) { return longitudes[index]; }
+    public int fuelType(int index) { return fuelTypes[index]; }
+
+    /**
+     * Gets the airport in a row, creating it on first use for file-backed stores
+     * @param index The row
+     * @return The airport
+     */
+    public Airport airport(int index) {
+        Airport airport = airports.get(index);
+        if (airport == null) {
+            Airport created = loader.apply(index);
+            // Another thread may have created it first; keep whichever was published
+            airport = airports.compareAndSet(index, null, created) ? created : airports.get(index);
+        }
+        return airport;
+    }
+
+    // Raw columns for distance kernels; callers must not modify them
+    double[] xs() { return xs; }
+    double[] ys() { return ys; }
+    double[] zs() { return zs; }
+    byte[] fuelTypes() { return fuelTypes; }
+
+    /**
+     * Finds the row holding an airport key
+     * @param key The airport key
+     * @return Row index, or -1 if the key is not stored
+     */
+    public int indexOf(int key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Computes the dot product between a point and every stored airport's unit vector.
+     * The dot product is the cosine of the central angle, so larger means closer.
+     * @param center The point to measure from
+     * @param out Receives one value per airport (length at least size())
+     */
+    public void dotProducts(GeoPoint center, double[] out) {
+        double cx = center.x;
+        double cy = center.y;
+        double cz = center.z;
+        for (int i = 0; i < keys.length; i++) {
+            out[i] = cx * xs[i] + cy * ys[i] + cz * zs[i];
+        }
+    }
+
+    /**
+     * Collects the rows of every airport within range of a point
+     * @param center The point to search around
+     * @param rangeNm The search radius in nautical miles
+     * @param fuelType Airplane fuel type the airport must sell, or 0 for any airport
+     * @param out Receives matching row indexes (length at least size())
+     * @return Number of rows written to out
+     */
+    public int withinRange(GeoPoint center, double rangeNm, int fuelType, int[] out) {
+        double angle = rangeNm / GreatCircle.EARTH_RADIUS_NM;
+        double minDot = angle >= Math.PI ? -2.0 : Math.cos(angle);
+        int fuelMask = fuelType == 0 ? 0xFF : fuelType;
+        double cx = center.x;
+        double cy = center.y;
+        double cz = center.z;
+
+        // Branch-free compaction: always write the row, only advance on a match
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            double dot = cx * xs[i] + cy * ys[i] + cz * zs[i];
+            out[count] = i;
+            count += (dot >= minDot & (fuelTypes[i] & fuelMask) != 0) ? 1 : 0;
+        }
+        return count;
+    }
+
+    /**
+     * Finds the airport closest to a point
+     * @param center The point to search around
+     * @param fuelType Airplane fuel type the airport must sell, or 0 for any airport
+     * @param excludeKey Airport key to skip (e.g. the point's own airport), or -1
+     * @return Row index of the nearest airport, or -1 if none qualifies
+     */
+    public int nearest(GeoPoint center, int fuelType, int excludeKey) {
+        int fuelMask = fuelType == 0 ? 0xFF : fuelType;
+        double cx = center.x;
+        double cy = center.y;
+        double cz = center.z;
+
+        int best = -1;
+        double bestDot = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < keys.length; i++) {
+            double dot = cx * xs[i] + cy * ys[i] + cz * zs[i];
+            if (dot > bestDot && (fuelTypes[i] & fuelMask) != 0 && keys[i] != excludeKey) {
+                best = i;
+                bestDot = dot;
+            }
+        }
+        return best;
+    }
+
+    // Read-only map over the key column; entries are read row by row in key order
+    private final class MapView extends AbstractMap<Integer, Airport> {
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && indexOf((Integer) key) >= 0;
+        }
+
+        @Override
+        public Airport get(Object key) {
+            int row = key instanceof Integer ? indexOf((Integer) key) : -1;
+            return row >= 0 ? airport(row) : null;
+        }
+
+        @Override
+        public Set<Map.Entry<Integer, Airport>> entrySet() {
+            return new AbstractSet<Map.Entry<Integer, Airport>>() {
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+
+                @Override
+                public Iterator<Map.Entry<Integer, Airport>> iterator() {
+                    return new Iterator<Map.Entry<Integer, Airport>>() {
+                        private int row;
+
+                        @Override
+                        public boolean hasNext() {
+                            return row < keys.length;
+                        }
+
+                        @Override
+                        public Map.Entry<Integer, Airport> next() {
+                            if (row >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int current = row++;
+                            return new AbstractMap.SimpleImmutableEntry<>(keys[current], airport(current));
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
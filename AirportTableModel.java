@@ -0,0 +1,159 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model over a list of airports, with an incremental text filter.
+ * Cell values are read from the airports only when a JTable asks for them,
+ * so rendering cost and memory follow the visible rows rather than the
+ * size of the database. The filter keeps the positions of matching rows in
+ * an int array; narrowing a filter (typing more of it) only rechecks the
+ * rows that matched before.
+ */
+public class AirportTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    // Column headings
+    private static final String[] COLUMNS = {
+        "Key", "ICAO", "Name", "Latitude", "Longitude", "Fuel Type", "Radio Type", "Radio Frequency"
+    };
+
+    private final List<Airport> airports;
+    // Positions in airports of the rows that pass the filter, or null when nothing is filtered
+    private int[] visible;
+    private int visibleCount;
+    private String filter = "";
+
+    /**
+     * Creates a model listing airports in key order
+     * @param airports The airports to list
+     */
+    public AirportTableModel(Collection<Airport> airports) {
+        this.airports = new ArrayList<>(airports);
+        this.airports.sort(Comparator.comparingInt(Airport::getKey));
+    }
+
+    /**
+     * Shows only airports whose key, ICAO code or name contains the text (ignoring case)
+     * @param text Filter text; blank shows every airport
+     */
+    public void setFilter(String text) {
+        String query = text == null ? "" : text.trim();
+        if (query.equals(filter)) {
+            return;
+        }
+        if (query.isEmpty()) {
+            visible = null;
+        } else if (visible != null && containsIgnoreCase(query, filter)) {
+            // A longer filter can only match a subset of the current rows
+            int kept = 0;
+            for (int i = 0; i < visibleCount; i++) {
+                if (matches(airports.get(visible[i]), query)) {
+                    visible[kept++] = visible[i];
+                }
+            }
+            visibleCount = kept;
+        } else {
+            int[] rows = new int[airports.size()];
+            int count = 0;
+            for (int i = 0; i < airports.size(); i++) {
+                if (matches(airports.get(i), query)) {
+                    rows[count++] = i;
+                }
+            }
+            visible = rows;
+            visibleCount = count;
+        }
+        filter = query;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Gets the current filter text
+     * @return The trimmed filter, empty if none
+     */
+    public String getFilter() {
+        return filter;
+    }
+
+    /**
+     * Gets the airport shown in a row
+     * @param row The row index in the filtered model
+     * @return The airport in that row
+     */
+    public Airport getAirportAt(int row) {
+        return airports.get(visible == null ? row : visible[row]);
+    }
+
+    /**
+     * Gets the number of airports before filtering
+     * @return Total airports in the model
+     */
+    public int getTotalCount() {
+        return airports.size();
+    }
+
+    @Override
+    public int getRowCount() {
+        return visible == null ? airports.size() : visibleCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case 0: case 5: return Integer.class;
+            case 3: case 4: case 7: return Double.class;
+            default: return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Airport airport = getAirportAt(row);
+        switch (column) {
+            case 0: return airport.getKey();
+            case 1: return airport.getIcao();
+            case 2: return airport.getName();
+            case 3: return airport.getLatitude();
+            case 4: return airport.getLongitude();
+            case 5: return airport.getFuelType();
+            case 6: return airport.getRadioType();
+            default: return airport.getRadioFrequency();
+        }
+    }
+
+    private static boolean matches(Airport airport, String query) {
+        return containsIgnoreCase(airport.getIcao(), query)
+            || containsIgnoreCase(airport.getName(), query)
+            || (Character.isDigit(query.charAt(0)) && Integer.toString(airport.getKey()).contains(query));
+    }
+
+    // Substring test that ignores case without allocating lower-case copies
+    private static boolean containsIgnoreCase(String text, String query) {
+        if (text == null) {
+            return false;
+        }
+        int length = query.length();
+        char lower = Character.toLowerCase(query.charAt(0));
+        char upper = Character.toUpperCase(query.charAt(0));
+        for (int i = 0; i + length <= text.length(); i++) {
+            char c = text.charAt(i);
+            if ((c == lower || c == upper) && text.regionMatches(true, i + 1, query, 1, length - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Business rules for airport records.
+ * The checks have no side effects and touch no shared state, so they can run
+ * on any thread; the interactive editor shows the message of a failed check
+ * in a dialog while the bulk importer collects it into its report.
+ */
+public final class AirportValidator {
+    private AirportValidator() {
+    }
+
+    /**
+     * Checks an airport against every business rule
+     * @param airport The airport to validate
+     * @throws IllegalArgumentException describing the first rule the airport breaks
+     */
+    public static void validate(Airport airport) {
+        // Validate name
+        if (airport.getName() == null || airport.getName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Airport name cannot be empty");
+        }
+        if (airport.getName().length() < 10) {
+            throw new IllegalArgumentException("Airport name must be at least 10 characters");
+        }
+        if (airport.getName().length() > 40) {
+            throw new IllegalArgumentException("Airport name cannot exceed 40 characters");
+        }
+
+        // Validate ICAO
+        if (airport.getIcao() == null) {
+            throw new IllegalArgumentException("ICAO code cannot be null");
+        }
+        if (airport.getIcao().length() != 4) {
+            throw new IllegalArgumentException("ICAO code must be exactly 4 characters");
+        }
+
+        // Validate coordinates
+        if (airport.getLatitude() < -90) {
+            throw new IllegalArgumentException("Latitude must be -90 or higher");
+        }
+        if (airport.getLatitude() > 90) {
+            throw new IllegalArgumentException("Latitude must be 90 or lower");
+        }
+        if (airport.getLongitude() < -180) {
+            throw new IllegalArgumentException("Longitude must be -180 or higher");
+        }
+        if (airport.getLongitude() > 180) {
+            throw new IllegalArgumentException("Longitude must be 180 or lower");
+        }
+
+        // Validate fuel type
+        if (airport.getFuelType() < 1) {
+            throw new IllegalArgumentException("Fuel type must be 1 or higher");
+        }
+        if (airport.getFuelType() > 3) {
+            throw new IllegalArgumentException("Fuel type must be 3 or lower");
+        }
+
+        // Validate radio type
+        if (airport.getRadioType() == null || airport.getRadioType().trim().isEmpty()) {
+            throw new IllegalArgumentException("Radio type cannot be empty");
+        }
+        if (!airport.getRadioType().equalsIgnoreCase("UHF") &&
+            !airport.getRadioType().equalsIgnoreCase("VHF") &&
+            !airport.getRadioType().equalsIgnoreCase("HF")) {
+            throw new IllegalArgumentException("Radio type must be UHF, VHF, or HF");
+        }
+
+        // Validate radio frequency
+        if (airport.getRadioFrequency() <= 0) {
+            throw new IllegalArgumentException("Radio frequency must be positive");
+        }
+
+        // Validate frequency ranges based on radio type
+        if (airport.getRadioType().equalsIgnoreCase("VHF")) {
+            if (airport.getRadioFrequency() < 118.0) {
+                throw new IllegalArgumentException("VHF frequency must be 118.0 MHz or higher");
+            }
+            if (airport.getRadioFrequency() > 136.975) {
+                throw new IllegalArgumentException("VHF frequency must be 136.975 MHz or lower");
+            }
+        } else if (airport.getRadioType().equalsIgnoreCase("UHF")) {
+            if (airport.getRadioFrequency() < 225) {
+                throw new IllegalArgumentException("UHF frequency must be 225 MHz or higher");
+            }
+            if (airport.getRadioFrequency() > 399.95) {
+                throw new IllegalArgumentException("UHF frequency must be 399.95 MHz or lower");
+            }
+        } else if (airport.getRadioType().equalsIgnoreCase("HF")) {
+            if (airport.getRadioFrequency() < 2) {
+                throw new IllegalArgumentException("HF frequency must be 2 MHz or higher");
+            }
+            if (airport.getRadioFrequency() > 30) {
+                throw new IllegalArgumentException("HF frequency must be 30 MHz or lower");
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for blocking background work such as file loading and request handling.
+ * Uses a virtual thread per task when the running JVM supports it (Java 21+),
+ * found reflectively so the code still compiles and runs on older JDKs, where
+ * a pool of daemon platform threads is used instead.
+ */
+public final class BackgroundExecutors {
+    private BackgroundExecutors() {
+    }
+
+    /**
+     * Creates an executor for blocking tasks
+     * @param name Prefix for platform thread names
+     * @param fallbackThreads Pool size used when virtual threads are unavailable
+     * @return A virtual-thread-per-task executor, or a fixed daemon thread pool
+     */
+    public static ExecutorService newTaskExecutor(String name, int fallbackThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newFixedThreadPool(fallbackThreads, daemonThreads(name));
+        }
+    }
+
+    /**
+     * Checks whether tasks run on virtual threads in this JVM
+     * @return true on Java 21 and later
+     */
+    public static boolean hasVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // Names threads "<name>-1", "<name>-2", ... and lets the JVM exit while they run
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,176 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Headless batch planner for CSV route schedules.
+ * Each input row is "airplaneKey,airportKey1,airportKey2[,airportKey3...]".
+ * Rows are read one at a time, planned in parallel on a fork-join pool and
+ * written back out in input order. Only a bounded window of rows is ever in
+ * flight, so schedules of any length run in constant memory. A row that
+ * cannot be planned, for whatever reason, is reported in its error column.
+ */
+public class BatchPlanner {
+    // Column header written at the top of the output file
+    private static final String OUTPUT_HEADER =
+        "line,airplane_key,route,possible,refuel_stops,total_distance_nm,total_time_h," +
+        "fuel_needed_l,flown_route,error";
+    // Rows kept in flight per worker thread before the oldest result must be written
+    private static final int ROWS_PER_WORKER = 64;
+
+    private final FlightPlanService service;
+    private final int parallelism;
+
+    /**
+     * Creates a batch planner that uses every available core
+     * @param service The planning service to run routes through
+     */
+    public BatchPlanner(FlightPlanService service) {
+        this(service, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a batch planner with a fixed number of worker threads
+     * @param service The planning service to run routes through
+     * @param parallelism Number of worker threads
+     */
+    public BatchPlanner(FlightPlanService service, int parallelism) {
+        this.service = service;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Plans every route in the input and writes one result row per route
+     * @param input CSV route requests (blank lines and lines starting with # are skipped)
+     * @param output Destination for the CSV results
+     * @return Number of routes planned
+     * @throws IOException if reading or writing fails
+     */
+    public long run(Reader input, Writer output) throws IOException {
+        BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+        int window = parallelism * ROWS_PER_WORKER;
+        ArrayDeque<ForkJoinTask<String>> pending = new ArrayDeque<>(window);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long lineNumber = 0;
+        long planned = 0;
+        boolean firstRow = true;
+
+        try {
+            output.write(OUTPUT_HEADER);
+            output.write(System.lineSeparator());
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                if (firstRow) {
+                    firstRow = false;
+                    if (isHeader(trimmed)) continue;
+                }
+
+                final long rowLine = lineNumber;
+                pending.add(pool.submit(() -> planRow(rowLine, trimmed)));
+                planned++;
+
+                // Write the oldest result once the window is full to keep memory bounded
+                if (pending.size() >= window) {
+                    writeRow(output, pending.poll().join());
+                }
+            }
+
+            // Drain the remaining results in order
+            while (!pending.isEmpty()) {
+                writeRow(output, pending.poll().join());
+            }
+            output.flush();
+        } finally {
+            pool.shutdownNow();
+        }
+        return planned;
+    }
+
+    // Plans a single CSV row and formats the result, reporting bad rows in the error column
+    private String planRow(long lineNumber, String row) {
+        String[] fields = row.split(",");
+        String airplaneField = fields[0].trim();
+        StringBuilder routeField = new StringBuilder();
+        for (int i = 1; i < fields.length; i++) {
+            if (i > 1) routeField.append(';');
+            routeField.append(fields[i].trim());
+        }
+
+        try {
+            int airplaneKey = Integer.parseInt(airplaneField);
+            List<Integer> airportKeys = new ArrayList<>(fields.length - 1);
+            for (int i = 1; i < fields.length; i++) {
+                airportKeys.add(Integer.parseInt(fields[i].trim()));
+            }
+
+            FlightPlan plan = service.plan(airportKeys, airplaneKey);
+            StringBuilder flown = new StringBuilder();
+            for (Airport airport : plan.getRoute()) {
+                if (flown.length() > 0) flown.append(';');
+                flown.append(airport.getKey());
+            }
+
+            if (!plan.isPossible()) {
+                return formatRow(lineNumber, airplaneField, routeField.toString(), "false", "", "", "", "", "",
+                                 plan.getImpossibilityReason());
+            }
+            return formatRow(lineNumber, airplaneField, routeField.toString(), "true",
+                             String.valueOf(plan.getRefuelStops().size()),
+                             String.format(Locale.ROOT, "%.2f", plan.getTotalDistance()),
+                             String.format(Locale.ROOT, "%.2f", plan.getTotalFlightTime()),
+                             String.format(Locale.ROOT, "%.2f", plan.getFuelNeeded()),
+                             flown.toString(), "");
+        } catch (NumberFormatException e) {
+            return formatRow(lineNumber, airplaneField, routeField.toString(), "false", "", "", "", "", "",
+                             "Keys must be whole numbers");
+        } catch (IllegalArgumentException e) {
+            return formatRow(lineNumber, airplaneField, routeField.toString(), "false", "", "", "", "", "",
+                             e.getMessage());
+        } catch (RuntimeException e) {
+            // Any other planning failure is reported against its own row so the batch keeps going
+            return formatRow(lineNumber, airplaneField, routeField.toString(), "false", "", "", "", "", "",
+                             "Planning failed: " + e);
+        }
+    }
+
+    // A first row whose leading field is not a number is treated as a column header
+    private static boolean isHeader(String row) {
+        String first = row.split(",", 2)[0].trim();
+        return !first.matches("-?\\d+");
+    }
+
+    private static String formatRow(long lineNumber, String... fields) {
+        StringBuilder sb = new StringBuilder().append(lineNumber);
+        for (String field : fields) {
+            sb.append(',').append(escapeCsv(field));
+        }
+        return sb.toString();
+    }
+
+    // Quotes a field if it contains a separator, quote or line break
+    private static String escapeCsv(String field) {
+        if (field == null) return "";
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    private static void writeRow(Writer output, String row) throws IOException {
+        output.write(row);
+        output.write(System.lineSeparator());
+    }
+}
@@ -0,0 +1,177 @@
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Background writer that coalesces bursts of saves into one write.
+ * Editors hand over an immutable snapshot and return immediately; the
+ * snapshot is written on a daemon thread once no newer snapshot has arrived
+ * for the debounce delay, but never later than the staleness bound after the
+ * first unsaved change. Only the newest snapshot is ever written. Pending
+ * data is flushed by flush(), by close(), and by one JVM shutdown hook shared
+ * by every writer that has not been closed.
+ *
+ * @param <T> The snapshot type
+ */
+public final class DebouncedWriter<T> implements AutoCloseable {
+    /**
+     * Persists one snapshot
+     * @param <T> The snapshot type
+     */
+    public interface Sink<T> {
+        void write(T snapshot) throws IOException;
+    }
+
+    private final Sink<T> sink;
+    private final Consumer<IOException> errorHandler;
+    private final long delayNanos;
+    private final long maxStalenessNanos;
+    private final ScheduledExecutorService executor;
+
+    // Guarded by this
+    private T pending;
+    private long firstPendingAt;
+    private ScheduledFuture<?> scheduled;
+    private boolean writing;
+
+    /**
+     * Creates a writer
+     * @param name Thread name, used in logs
+     * @param delayMillis Quiet period after the last submit before writing
+     * @param maxStalenessMillis Longest time a submitted change may stay unwritten
+     * @param sink Writes a snapshot to storage
+     * @param errorHandler Told about failed writes (called on the writer thread)
+     */
+    public DebouncedWriter(String name, long delayMillis, long maxStalenessMillis,
+                           Sink<T> sink, Consumer<IOException> errorHandler) {
+        if (delayMillis < 0 || maxStalenessMillis < delayMillis) {
+            throw new IllegalArgumentException("Invalid debounce settings: delay " + delayMillis +
+                                               " ms, max staleness " + maxStalenessMillis + " ms");
+        }
+        this.sink = sink;
+        this.errorHandler = errorHandler;
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ShutdownFlush.WRITERS.add(this);
+    }
+
+    /**
+     * Queues a snapshot to be written, replacing any snapshot not yet written
+     * @param snapshot Immutable copy of the data to persist
+     */
+    public synchronized void submit(T snapshot) {
+        long now = System.nanoTime();
+        if (pending == null) {
+            firstPendingAt = now;
+        }
+        pending = snapshot;
+
+        // Push the write back by the delay, but not past the staleness bound
+        long due = Math.min(now + delayNanos, firstPendingAt + maxStalenessNanos);
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        scheduled = executor.schedule(this::writePending, Math.max(0, due - now), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Checks whether every submitted snapshot has been written
+     * @return true if nothing is pending or being written
+     */
+    public synchronized boolean isIdle() {
+        return pending == null && !writing;
+    }
+
+    /**
+     * Writes any pending snapshot now and waits for it (and any write in progress) to finish
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        synchronized (this) {
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+        try {
+            // The single writer thread runs tasks in order, so this also waits for a running write
+            executor.submit(this::writePending).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Persistence writer failed", e.getCause());
+        }
+    }
+
+    /**
+     * Flushes pending data and stops the writer thread
+     * If interrupted while waiting, the thread's interrupt flag is set again and
+     * the writer is still stopped once its queued work has run.
+     */
+    @Override
+    public void close() {
+        ShutdownFlush.WRITERS.remove(this);
+        try {
+            flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void writePending() {
+        T snapshot;
+        synchronized (this) {
+            snapshot = pending;
+            pending = null;
+            scheduled = null;
+            if (snapshot == null) {
+                return;
+            }
+            writing = true;
+        }
+        try {
+            sink.write(snapshot);
+        } catch (IOException e) {
+            errorHandler.accept(e);
+        } finally {
+            synchronized (this) {
+                writing = false;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        if (executor.isShutdown()) {
+            return;
+        }
+        try {
+            flush();
+        } catch (InterruptedException | RuntimeException e) {
+            System.err.println("Could not flush pending data at shutdown: " + e);
+        }
+    }
+
+    // Writers still open at exit, flushed by a single hook installed on first use
+    private static final class ShutdownFlush {
+        static final Set<DebouncedWriter<?>> WRITERS = ConcurrentHashMap.newKeySet();
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                for (DebouncedWriter<?> writer : WRITERS) {
+                    writer.flushQuietly();
+                }
+            }, "debounced-writer-shutdown"));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * One-to-many great-circle distance kernel.
+ * Computes the distance from one point to every airport in an AirportStore in
+ * a single pass over its unit-vector columns. When the JVM is started with
+ * --add-modules jdk.incubator.vector the SIMD implementation in
+ * VectorDistanceKernel is used; otherwise a scalar loop produces the same
+ * results.
+ */
+public abstract class DistanceKernel {
+    // Why the vector kernel could not be loaded, or null if it was not attempted or succeeded
+    private static String fallbackReason;
+    // Kernel chosen once per JVM
+    private static final DistanceKernel INSTANCE = create();
+
+    /**
+     * Gets the fastest kernel available in this JVM
+     * @return The shared kernel instance
+     */
+    public static DistanceKernel getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the reason the vector kernel was requested but could not be used
+     * @return Description of the load failure, or null if there was none
+     */
+    public static String getFallbackReason() {
+        return fallbackReason;
+    }
+
+    /**
+     * Gets the name of this kernel implementation
+     * @return Short description for logs and benchmarks
+     */
+    public abstract String getName();
+
+    /**
+     * Checks whether a full sweep is cheap enough to replace per-pair distance calls
+     * @return true for SIMD kernels, false for the scalar fallback
+     */
+    public abstract boolean isVectorized();
+
+    /**
+     * Computes the distance from a point to every airport in the store
+     * @param store The airports to measure to
+     * @param source The point to measure from
+     * @param out Receives one distance in nautical miles per store row (length at least store.size())
+     */
+    public abstract void distances(AirportStore store, GeoPoint source, double[] out);
+
+    // Converts a squared chord between unit vectors into a surface distance (same formula as GreatCircle)
+    static double distanceFromChord(double chordSq) {
+        double a = Math.min(1.0, chordSq * 0.25);
+        return GreatCircle.EARTH_RADIUS_NM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    // Picks the vector kernel when its module is present, falling back to the scalar loop
+    private static DistanceKernel create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (DistanceKernel) Class.forName("VectorDistanceKernel")
+                                             .getDeclaredConstructor()
+                                             .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Planning works the same with the scalar loop; callers can report why if they care
+                fallbackReason = e.toString();
+            }
+        }
+        return new ScalarDistanceKernel();
+    }
+
+    /**
+     * Portable kernel used when the Vector API is not available
+     */
+    static final class ScalarDistanceKernel extends DistanceKernel {
+        @Override
+        public String getName() {
+            return "scalar";
+        }
+
+        @Override
+        public boolean isVectorized() {
+            return false;
+        }
+
+        @Override
+        public void distances(AirportStore store, GeoPoint source, double[] out) {
+            double[] xs = store.xs();
+            double[] ys = store.ys();
+            double[] zs = store.zs();
+            for (int i = 0; i < store.size(); i++) {
+                double dx = xs[i] - source.x;
+                double dy = ys[i] - source.y;
+                double dz = zs[i] - source.z;
+                out[i] = distanceFromChord(dx * dx + dy * dy + dz * dz);
+            }
+        }
+    }
+}
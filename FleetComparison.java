@@ -0,0 +1,265 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Plans one route for every airplane in the fleet at once and ranks the results.
+ * The fleet is split into fork-join tasks, so idle workers steal airplanes
+ * whose plans need long refuel searches from busy ones. Every plan goes
+ * through the same service and so the same LegCache: the requested legs are
+ * measured once before the fan-out, and refuel legs found for one airplane
+ * are reused by the others. Comparisons run on their own pool by default, so
+ * they neither starve nor wait behind other users of the common pool.
+ */
+public class FleetComparison {
+    /**
+     * Orders for ranking the possible plans; ties fall back to the other measures, then the airplane key
+     */
+    public enum Ranking {
+        TIME(Comparator.comparingDouble(FlightPlan::getTotalFlightTime)
+                       .thenComparingDouble(FlightPlan::getFuelNeeded)
+                       .thenComparingInt(plan -> plan.getRefuelStops().size())),
+        FUEL(Comparator.comparingDouble(FlightPlan::getFuelNeeded)
+                       .thenComparingDouble(FlightPlan::getTotalFlightTime)
+                       .thenComparingInt(plan -> plan.getRefuelStops().size())),
+        STOPS(Comparator.<FlightPlan>comparingInt(plan -> plan.getRefuelStops().size())
+                        .thenComparingDouble(FlightPlan::getTotalFlightTime)
+                        .thenComparingDouble(FlightPlan::getFuelNeeded));
+
+        private final Comparator<FlightPlan> order;
+
+        Ranking(Comparator<FlightPlan> order) {
+            this.order = order.thenComparingInt(plan -> plan.getAirplane().getKey());
+        }
+    }
+
+    /**
+     * Receives progress as airplanes are planned (called on pool threads)
+     */
+    public interface ProgressListener {
+        void planned(int done, int total);
+    }
+
+    // Airplanes a task plans itself instead of splitting further
+    private static final int LEAF_SIZE = 2;
+
+    private final FlightPlanService service;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a comparison that runs on the pool shared by fleet comparisons
+     * @param service The planning service holding the fleet and airports
+     */
+    public FleetComparison(FlightPlanService service) {
+        this(service, DefaultPool.POOL);
+    }
+
+    /**
+     * Creates a comparison that runs on a given pool
+     * @param service The planning service holding the fleet and airports
+     * @param pool Work-stealing pool to plan on
+     */
+    public FleetComparison(FlightPlanService service, ForkJoinPool pool) {
+        this.service = service;
+        this.pool = pool;
+    }
+
+    /**
+     * Plans a route for every airplane in the service's fleet
+     * @param airportKeys Ordered airport keys: departure, any stops, destination
+     * @return The plans of every airplane
+     * @throws IllegalArgumentException if the route is invalid
+     * @throws CancellationException if the calling thread is interrupted while waiting
+     */
+    public Result compare(List<Integer> airportKeys) {
+        return compare(airportKeys, (done, total) -> { });
+    }
+
+    /**
+     * Plans a route for every airplane in the service's fleet, reporting progress
+     * @param airportKeys Ordered airport keys: departure, any stops, destination
+     * @param progress Told each time an airplane's plan is finished
+     * @return The plans of every airplane
+     * @throws IllegalArgumentException if the route is invalid
+     * @throws CancellationException if the calling thread is interrupted while waiting
+     */
+    public Result compare(List<Integer> airportKeys, ProgressListener progress) {
+        long start = System.nanoTime();
+        Airplane[] fleet = service.getAirplanes().values().toArray(new Airplane[0]);
+        Arrays.sort(fleet, Comparator.comparingInt(Airplane::getKey));
+        if (fleet.length == 0) {
+            return new Result(Collections.emptyList(), 0);
+        }
+        warmLegs(airportKeys);
+
+        PlanTask root = new PlanTask(airportKeys, fleet, 0, fleet.length, new FlightPlan[fleet.length],
+                                     new AtomicInteger(), progress);
+        ForkJoinTask<Void> running = pool.submit(root);
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            // Workers are not interrupted; the flag makes the remaining tasks skip their airplanes
+            root.cancelled.set(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Fleet comparison cancelled");
+        } catch (ExecutionException e) {
+            // Rethrow what the planner threw, not the copy fork-join may make on the waiting thread
+            RuntimeException failure = root.failure.get();
+            if (failure != null) {
+                throw failure;
+            }
+            throw new IllegalStateException("Fleet comparison failed", e.getCause());
+        }
+        return new Result(Arrays.asList(root.plans), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Measures each requested leg once up front, so tasks find it cached instead of racing to compute it
+    private void warmLegs(List<Integer> airportKeys) {
+        Map<Integer, Airport> airports = service.getAirports();
+        double[] metrics = new double[2];
+        for (int i = 1; airportKeys != null && i < airportKeys.size(); i++) {
+            Airport from = airports.get(airportKeys.get(i - 1));
+            Airport to = airports.get(airportKeys.get(i));
+            if (from != null && to != null) {
+                service.getLegCache().leg(from, to, metrics);
+            }
+        }
+    }
+
+    // Plans a slice of the fleet, splitting it in half until it is small
+    private final class PlanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Integer> airportKeys;
+        private final Airplane[] fleet;
+        private final int from;
+        private final int to;
+        private final FlightPlan[] plans;
+        private final AtomicInteger done;
+        private final ProgressListener progress;
+        // Shared by every task of one comparison
+        private final AtomicBoolean cancelled;
+        private final AtomicReference<RuntimeException> failure; // First exception thrown by the planner
+
+        PlanTask(List<Integer> airportKeys, Airplane[] fleet, int from, int to, FlightPlan[] plans,
+                 AtomicInteger done, ProgressListener progress) {
+            this(airportKeys, fleet, from, to, plans, done, progress, new AtomicBoolean(), new AtomicReference<>());
+        }
+
+        private PlanTask(List<Integer> airportKeys, Airplane[] fleet, int from, int to, FlightPlan[] plans,
+                         AtomicInteger done, ProgressListener progress, AtomicBoolean cancelled,
+                         AtomicReference<RuntimeException> failure) {
+            this.airportKeys = airportKeys;
+            this.fleet = fleet;
+            this.from = from;
+            this.to = to;
+            this.plans = plans;
+            this.done = done;
+            this.progress = progress;
+            this.cancelled = cancelled;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PlanTask(airportKeys, fleet, from, middle, plans, done, progress, cancelled, failure),
+                          new PlanTask(airportKeys, fleet, middle, to, plans, done, progress, cancelled, failure));
+                return;
+            }
+            for (int i = from; i < to && !cancelled.get(); i++) {
+                try {
+                    plans[i] = service.plan(airportKeys, fleet[i].getKey());
+                } catch (RuntimeException e) {
+                    // The rest of the fleet is skipped; the comparison fails with this exception
+                    failure.compareAndSet(null, e);
+                    cancelled.set(true);
+                    throw e;
+                }
+                progress.planned(done.incrementAndGet(), fleet.length);
+            }
+        }
+    }
+
+    // Work-stealing pool shared by comparisons that are not given one, created on first use
+    private static final class DefaultPool {
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+            // Fork-join workers are daemon threads, so an idle pool does not keep the JVM alive
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("fleet-comparison-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * The plans of every airplane for one route
+     */
+    public static final class Result {
+        private final List<FlightPlan> plans;
+        private final long elapsedMillis;
+
+        Result(List<FlightPlan> plans, long elapsedMillis) {
+            this.plans = Collections.unmodifiableList(plans);
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * Gets every plan, in airplane key order
+         * @return Unmodifiable list of plans
+         */
+        public List<FlightPlan> getPlans() {
+            return plans;
+        }
+
+        /**
+         * Gets the plans that can be flown, best first
+         * @param ranking The measure to rank by
+         * @return New list of possible plans
+         */
+        public List<FlightPlan> getRanked(Ranking ranking) {
+            List<FlightPlan> ranked = new ArrayList<>();
+            for (FlightPlan plan : plans) {
+                if (plan.isPossible()) {
+                    ranked.add(plan);
+                }
+            }
+            ranked.sort(ranking.order);
+            return ranked;
+        }
+
+        /**
+         * Gets the plans that cannot be flown, in airplane key order
+         * @return New list of impossible plans
+         */
+        public List<FlightPlan> getImpossible() {
+            List<FlightPlan> impossible = new ArrayList<>();
+            for (FlightPlan plan : plans) {
+                if (!plan.isPossible()) {
+                    impossible.add(plan);
+                }
+            }
+            return impossible;
+        }
+
+        /**
+         * Gets how long the comparison took
+         * @return Wall-clock time in milliseconds
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Secondary indexes over a fleet of airplanes, answering multi-field queries
+ * without scanning every airplane.
+ * Make, model and type are hash indexes on the case-folded value; airspeed,
+ * fuel capacity and range are sorted maps, so a bound such as "range above
+ * 2000 nm" walks only the matching part of the map. Range is also indexed
+ * per fuel type, so a range bound on one fuel walks only that fuel's
+ * airplanes. A query is driven by whichever of its filters selects the
+ * fewest airplanes, and the remaining filters are checked on those
+ * candidates only. Results are in key order so pages stay stable.
+ */
+public class FleetIndex {
+    private final Map<Integer, Airplane> airplanes = new HashMap<>();
+    // Values each airplane was indexed under; airplanes may be edited in place before update is called
+    private final Map<Integer, Indexed> indexed = new HashMap<>();
+    private final Map<String, Set<Integer>> makeIndex = new HashMap<>();
+    private final Map<String, Set<Integer>> modelIndex = new HashMap<>();
+    private final Map<String, Set<Integer>> typeIndex = new HashMap<>();
+    private final NavigableMap<Double, Set<Integer>> airspeedIndex = new TreeMap<>();
+    private final NavigableMap<Double, Set<Integer>> fuelSizeIndex = new TreeMap<>();
+    private final NavigableMap<Double, Set<Integer>> rangeIndex = new TreeMap<>();
+    // Range index split by fuel type, so "range above x on fuel y" walks only matching airplanes
+    private final Map<Integer, NavigableMap<Double, Set<Integer>>> rangeByFuel = new HashMap<>();
+    // Range-sorted arrays per fuel type (0 for all), built on demand and dropped on any change
+    private final Map<Integer, RangeSnapshot> rangeSnapshots = new HashMap<>();
+
+    /**
+     * Creates an empty index
+     */
+    public FleetIndex() {
+    }
+
+    /**
+     * Creates an index over a set of airplanes
+     * @param initial The airplanes to index
+     */
+    public FleetIndex(Collection<Airplane> initial) {
+        for (Airplane airplane : initial) {
+            add(airplane);
+        }
+    }
+
+    /**
+     * Computes how far an airplane can fly on full tanks
+     * @param airplane The airplane
+     * @return Range in nautical miles: fuel size / fuel burn * airspeed
+     */
+    public static double range(Airplane airplane) {
+        return airplane.getFuelSize() / airplane.getFuelBurn() * airplane.getAirspeed();
+    }
+
+    /**
+     * Adds an airplane, or re-indexes it if its key is already present
+     * @param airplane The airplane to index
+     */
+    public synchronized void add(Airplane airplane) {
+        remove(airplane.getKey());
+        rangeSnapshots.clear();
+        Indexed values = new Indexed(airplane);
+        airplanes.put(airplane.getKey(), airplane);
+        indexed.put(airplane.getKey(), values);
+        put(makeIndex, values.make, airplane.getKey());
+        put(modelIndex, values.model, airplane.getKey());
+        put(typeIndex, values.type, airplane.getKey());
+        put(airspeedIndex, values.airspeed, airplane.getKey());
+        put(fuelSizeIndex, values.fuelSize, airplane.getKey());
+        put(rangeIndex, values.range, airplane.getKey());
+        put(rangeByFuel.computeIfAbsent(values.fuelType, f -> new TreeMap<>()), values.range, airplane.getKey());
+    }
+
+    /**
+     * Re-indexes an airplane after its fields changed
+     * @param airplane The airplane with its new values
+     */
+    public synchronized void update(Airplane airplane) {
+        add(airplane);
+    }
+
+    /**
+     * Removes an airplane from every index
+     * @param key Key of the airplane to remove
+     */
+    public synchronized void remove(int key) {
+        Indexed values = indexed.remove(key);
+        if (values == null) {
+            return;
+        }
+        airplanes.remove(key);
+        rangeSnapshots.clear();
+        take(makeIndex, values.make, key);
+        take(modelIndex, values.model, key);
+        take(typeIndex, values.type, key);
+        take(airspeedIndex, values.airspeed, key);
+        take(fuelSizeIndex, values.fuelSize, key);
+        take(rangeIndex, values.range, key);
+        NavigableMap<Double, Set<Integer>> fuelRanges = rangeByFuel.get(values.fuelType);
+        if (fuelRanges != null) {
+            take(fuelRanges, values.range, key);
+        }
+    }
+
+    /**
+     * Removes every airplane
+     */
+    public synchronized void clear() {
+        airplanes.clear();
+        indexed.clear();
+        makeIndex.clear();
+        modelIndex.clear();
+        typeIndex.clear();
+        airspeedIndex.clear();
+        fuelSizeIndex.clear();
+        rangeIndex.clear();
+        rangeByFuel.clear();
+        rangeSnapshots.clear();
+    }
+
+    /**
+     * Gets the number of airplanes indexed
+     * @return Airplanes in the index
+     */
+    public synchronized int size() {
+        return airplanes.size();
+    }
+
+    /**
+     * Finds every airplane matching a query and returns one page of them
+     * @param query The filters to apply
+     * @param offset Matches to skip, for later pages
+     * @param limit Most airplanes to return
+     * @return The page of matches, in key order, with the total match count
+     */
+    public synchronized Page query(Query query, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        Collection<Integer> candidates = candidates(query);
+        List<Integer> matches = new ArrayList<>();
+        for (Integer key : candidates) {
+            if (query.matches(indexed.get(key))) {
+                matches.add(key);
+            }
+        }
+        // Candidates from a sorted map come in value order, not key order
+        if (!(candidates instanceof TreeSet)) {
+            Collections.sort(matches);
+        }
+        List<Airplane> page = new ArrayList<>(Math.max(0, Math.min(limit, matches.size() - offset)));
+        for (int i = offset; i < matches.size() && page.size() < limit; i++) {
+            page.add(airplanes.get(matches.get(i)));
+        }
+        return new Page(page, matches.size(), offset);
+    }
+
+    /**
+     * Finds every airplane matching a query
+     * @param query The filters to apply
+     * @return All matches in key order
+     */
+    public List<Airplane> queryAll(Query query) {
+        return query(query, 0, Integer.MAX_VALUE).getAirplanes();
+    }
+
+    /**
+     * Finds airplanes with at least a given range
+     * Reads a range-sorted array built from the range index on the first call
+     * after a change, so a lookup is one binary search and the result is a view
+     * of the array's tail.
+     * @param fuelType Fuel type the airplanes must use, or 0 for any
+     * @param minRange Shortest acceptable range (nm)
+     * @return Unmodifiable list of the matching airplanes in order of increasing range
+     */
+    public synchronized List<Airplane> withRange(int fuelType, double minRange) {
+        RangeSnapshot snapshot = rangeSnapshots.computeIfAbsent(fuelType, this::rangeSnapshot);
+        int first = Arrays.binarySearch(snapshot.ranges, minRange);
+        if (first < 0) {
+            first = -first - 1;
+        } else {
+            // Step back over airplanes with exactly this range
+            while (first > 0 && snapshot.ranges[first - 1] == minRange) {
+                first--;
+            }
+        }
+        return snapshot.airplanes.subList(first, snapshot.ranges.length);
+    }
+
+    private RangeSnapshot rangeSnapshot(int fuelType) {
+        NavigableMap<Double, Set<Integer>> ranges = fuelType == 0
+            ? rangeIndex
+            : rangeByFuel.getOrDefault(fuelType, Collections.emptyNavigableMap());
+        List<Airplane> sorted = new ArrayList<>();
+        List<Double> values = new ArrayList<>();
+        for (Map.Entry<Double, Set<Integer>> entry : ranges.entrySet()) {
+            for (Integer key : entry.getValue()) {
+                sorted.add(airplanes.get(key));
+                values.add(entry.getKey());
+            }
+        }
+        double[] rangeArray = new double[values.size()];
+        for (int i = 0; i < rangeArray.length; i++) {
+            rangeArray[i] = values.get(i);
+        }
+        return new RangeSnapshot(rangeArray, Collections.unmodifiableList(sorted));
+    }
+
+    // Picks the filter that selects the fewest airplanes and returns the keys it selects
+    private Collection<Integer> candidates(Query query) {
+        Collection<Integer> best = null;
+        best = smaller(best, query.make == null ? null : lookup(makeIndex, query.make));
+        best = smaller(best, query.model == null ? null : lookup(modelIndex, query.model));
+        best = smaller(best, query.type == null ? null : lookup(typeIndex, query.type));
+        int limit = best == null ? Integer.MAX_VALUE : best.size();
+        best = smaller(best, span(airspeedIndex, query.minAirspeed, query.maxAirspeed, limit));
+        limit = best == null ? Integer.MAX_VALUE : best.size();
+        best = smaller(best, span(fuelSizeIndex, query.minFuelSize, query.maxFuelSize, limit));
+        limit = best == null ? Integer.MAX_VALUE : best.size();
+        NavigableMap<Double, Set<Integer>> ranges = query.fuelType == 0
+            ? rangeIndex
+            : rangeByFuel.getOrDefault(query.fuelType, Collections.emptyNavigableMap());
+        best = smaller(best, span(ranges, query.minRange, query.maxRange, limit));
+        return best != null ? best : new TreeSet<>(airplanes.keySet());
+    }
+
+    private static Collection<Integer> smaller(Collection<Integer> best, Collection<Integer> other) {
+        return other != null && (best == null || other.size() < best.size()) ? other : best;
+    }
+
+    private static Set<Integer> lookup(Map<String, Set<Integer>> index, String value) {
+        Set<Integer> keys = index.get(value);
+        return keys != null ? keys : Collections.emptySet();
+    }
+
+    // Keys with values in [min, max], or null if the span is unbounded or holds at least limit keys
+    private static List<Integer> span(NavigableMap<Double, Set<Integer>> index, double min, double max, int limit) {
+        if (min == Double.NEGATIVE_INFINITY && max == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        if (min > max) {
+            return Collections.emptyList();
+        }
+        List<Integer> keys = new ArrayList<>();
+        for (Set<Integer> group : index.subMap(min, true, max, true).values()) {
+            keys.addAll(group);
+            if (keys.size() >= limit) {
+                return null;
+            }
+        }
+        return keys;
+    }
+
+    private static <K> void put(Map<K, Set<Integer>> index, K value, int key) {
+        index.computeIfAbsent(value, v -> new TreeSet<>()).add(key);
+    }
+
+    private static <K> void take(Map<K, Set<Integer>> index, K value, int key) {
+        Set<Integer> keys = index.get(value);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            index.remove(value);
+        }
+    }
+
+    // Case-folds text the same way equalsIgnoreCase compares it
+    private static String normalize(String value) {
+        return value == null ? "" : value.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    // Snapshot of the values an airplane is indexed under
+    private static final class Indexed {
+        final String make;
+        final String model;
+        final String type;
+        final double airspeed;
+        final double fuelSize;
+        final double range;
+        final int fuelType;
+
+        Indexed(Airplane airplane) {
+            make = normalize(airplane.getMake());
+            model = normalize(airplane.getModel());
+            type = normalize(airplane.getAircraftType());
+            airspeed = airplane.getAirspeed();
+            fuelSize = airplane.getFuelSize();
+            range = range(airplane);
+            fuelType = airplane.getFuelType();
+        }
+    }
+
+    // Airplanes sorted by range, with their ranges in a parallel array for binary search
+    private static final class RangeSnapshot {
+        final double[] ranges;
+        final List<Airplane> airplanes;
+
+        RangeSnapshot(double[] ranges, List<Airplane> airplanes) {
+            this.ranges = ranges;
+            this.airplanes = airplanes;
+        }
+    }
+
+    /**
+     * Filters for a fleet query; unset filters match every airplane.
+     * Text filters match whole values ignoring case, and bounds are inclusive.
+     */
+    public static class Query {
+        private String make;
+        private String model;
+        private String type;
+        private int fuelType;
+        private double minAirspeed = Double.NEGATIVE_INFINITY;
+        private double maxAirspeed = Double.POSITIVE_INFINITY;
+        private double minFuelSize = Double.NEGATIVE_INFINITY;
+        private double maxFuelSize = Double.POSITIVE_INFINITY;
+        private double minRange = Double.NEGATIVE_INFINITY;
+        private double maxRange = Double.POSITIVE_INFINITY;
+
+        public Query make(String value) { make = value == null ? null : normalize(value); return this; }
+        public Query model(String value) { model = value == null ? null : normalize(value); return this; }
+        public Query type(String value) { type = value == null ? null : normalize(value); return this; }
+        public Query fuelType(int value) { fuelType = value; return this; }
+        public Query minAirspeed(double value) { minAirspeed = value; return this; }
+        public Query maxAirspeed(double value) { maxAirspeed = value; return this; }
+        public Query minFuelSize(double value) { minFuelSize = value; return this; }
+        public Query maxFuelSize(double value) { maxFuelSize = value; return this; }
+        public Query minRange(double value) { minRange = value; return this; }
+        public Query maxRange(double value) { maxRange = value; return this; }
+
+        private boolean matches(Indexed values) {
+            return (make == null || make.equals(values.make))
+                && (model == null || model.equals(values.model))
+                && (type == null || type.equals(values.type))
+                && (fuelType == 0 || fuelType == values.fuelType)
+                && values.airspeed >= minAirspeed && values.airspeed <= maxAirspeed
+                && values.fuelSize >= minFuelSize && values.fuelSize <= maxFuelSize
+                && values.range >= minRange && values.range <= maxRange;
+        }
+    }
+
+    /**
+     * One page of query results
+     */
+    public static final class Page {
+        private final List<Airplane> airplanes;
+        private final int totalCount;
+        private final int offset;
+
+        Page(List<Airplane> airplanes, int totalCount, int offset) {
+            this.airplanes = Collections.unmodifiableList(airplanes);
+            this.totalCount = totalCount;
+            this.offset = offset;
+        }
+
+        public List<Airplane> getAirplanes() { return airplanes; }
+        public int getTotalCount() { return totalCount; }
+        public int getOffset() { return offset; }
+        public boolean hasMore() { return offset + airplanes.size() < totalCount; }
+    }
+}
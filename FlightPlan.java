@@ -0,0 +1,84 @@
+import java.util.List;
+
+/**
+ * Immutable result of planning a route for one airplane.
+ * Holds the route as requested, the route actually flown (with any refueling
+ * stops inserted), the individual legs and the plan totals.
+ */
+public final class FlightPlan {
+    private final Airplane airplane;
+    private final List<Airport> requestedRoute;  // Airports chosen by the user
+    private final List<Airport> route;           // Airports flown, including refuel stops
+    private final List<Airport> refuelStops;     // Stops added automatically for fuel
+    private final List<Leg> legs;
+    private final double totalDistance;          // Nautical miles
+    private final double totalFlightTime;        // Hours
+    private final double averageHeading;         // Degrees
+    private final double fuelNeeded;             // Liters
+    private final String impossibilityReason;    // Null when the flight is possible
+
+    FlightPlan(Airplane airplane, List<Airport> requestedRoute, List<Airport> route,
+               List<Airport> refuelStops, List<Leg> legs, String impossibilityReason) {
+        this.airplane = airplane;
+        this.requestedRoute = List.copyOf(requestedRoute);
+        this.route = List.copyOf(route);
+        this.refuelStops = List.copyOf(refuelStops);
+        this.legs = List.copyOf(legs);
+        this.impossibilityReason = impossibilityReason;
+
+        // Totals are derived from the legs so they always agree with them
+        double distance = 0;
+        double time = 0;
+        double heading = 0;
+        for (Leg leg : legs) {
+            distance += leg.getDistance();
+            time += leg.getFlightTime();
+            heading += leg.getHeading();
+        }
+        this.totalDistance = distance;
+        this.totalFlightTime = time;
+        this.averageHeading = legs.isEmpty() ? 0 : heading / legs.size();
+        this.fuelNeeded = time * airplane.getFuelBurn();
+    }
+
+    public Airplane getAirplane() { return airplane; }
+    public List<Airport> getRequestedRoute() { return requestedRoute; }
+    public List<Airport> getRoute() { return route; }
+    public List<Airport> getRefuelStops() { return refuelStops; }
+    public List<Leg> getLegs() { return legs; }
+    public double getTotalDistance() { return totalDistance; }
+    public double getTotalFlightTime() { return totalFlightTime; }
+    public double getAverageHeading() { return averageHeading; }
+    public double getFuelNeeded() { return fuelNeeded; }
+    public boolean isPossible() { return impossibilityReason == null; }
+    public String getImpossibilityReason() { return impossibilityReason; }
+    public boolean hasRefuelStops() { return !refuelStops.isEmpty(); }
+
+    /**
+     * One leg of a flight plan between two consecutive airports
+     */
+    public static final class Leg {
+        private final Airport from;
+        private final Airport to;
+        private final double distance;    // Nautical miles
+        private final double heading;     // Initial heading in degrees
+        private final double flightTime;  // Hours
+        private final boolean refuelLeg;  // True if either end is an added refuel stop
+
+        Leg(Airport from, Airport to, double distance, double heading, double flightTime, boolean refuelLeg) {
+            this.from = from;
+            this.to = to;
+            this.distance = distance;
+            this.heading = heading;
+            this.flightTime = flightTime;
+            this.refuelLeg = refuelLeg;
+        }
+
+        public Airport getFrom() { return from; }
+        public Airport getTo() { return to; }
+        public double getDistance() { return distance; }
+        public double getHeading() { return heading; }
+        public double getFlightTime() { return flightTime; }
+        public boolean isRefuelLeg() { return refuelLeg; }
+    }
+}
@@ -0,0 +1,292 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Headless flight planning engine.
+ * Computes flight plans from airport and airplane keys without any user
+ * interaction. The service only reads its own copies of the databases, so a
+ * single instance can be shared by any number of threads. Leg metrics go
+ * through a LegCache, so repeated city pairs are only computed once.
+ * Planning reports its progress leg by leg to an optional listener and stops
+ * with a CancellationException when the planning thread is interrupted.
+ */
+public class FlightPlanService {
+    /**
+     * Receives progress while a plan is computed (called on the planning thread)
+     */
+    public interface ProgressListener {
+        /**
+         * Called before a leg of the requested route is planned
+         * @param leg Index of the leg (0-based)
+         * @param legCount Number of legs in the requested route
+         * @param from The leg's departure airport
+         * @param to The leg's arrival airport
+         * @param needsRefuel true if the leg is beyond the airplane's range and stops will be searched for
+         */
+        default void legStarted(int leg, int legCount, Airport from, Airport to, boolean needsRefuel) {
+        }
+
+        /**
+         * Called after a leg of the requested route has been planned
+         * @param leg Index of the leg (0-based)
+         * @param legCount Number of legs in the requested route
+         * @param refuelStops Refuel stops found so far on the whole route
+         */
+        default void legPlanned(int leg, int legCount, int refuelStops) {
+        }
+    }
+
+    // Listener used when the caller does not want progress
+    private static final ProgressListener NO_PROGRESS = new ProgressListener() { };
+
+    private final Map<Integer, Airport> airports;
+    private final Map<Integer, Airplane> airplanes;
+    private final AirportStore airportStore;
+    private final AirportSpatialIndex spatialIndex;
+    private final RefuelRouter router;
+    private final FuelPartitionedIndex fuelIndex;
+    private final FleetIndex fleetIndex;
+    private final LegCache legCache;
+
+    /**
+     * Creates a service over snapshots of the given databases
+     * @param airports Airports by key
+     * @param airplanes Airplanes by key
+     */
+    public FlightPlanService(Map<Integer, Airport> airports, Map<Integer, Airplane> airplanes) {
+        this(airports, airplanes, new LegCache());
+    }
+
+    /**
+     * Creates a service over snapshots of the given databases using a shared leg cache
+     * @param airports Airports by key
+     * @param airplanes Airplanes by key
+     * @param legCache Cache for leg metrics (may be shared; legs of moved airports are recomputed)
+     */
+    public FlightPlanService(Map<Integer, Airport> airports, Map<Integer, Airplane> airplanes, LegCache legCache) {
+        this(AirportStore.from(airports), airplanes, legCache);
+    }
+
+    /**
+     * Creates a service over an existing airport store, e.g. one read from a binary airport file
+     * @param airportStore Airports to plan with
+     * @param airplanes Airplanes by key
+     * @param legCache Cache for leg metrics (may be shared; legs of moved airports are recomputed)
+     */
+    public FlightPlanService(AirportStore airportStore, Map<Integer, Airplane> airplanes, LegCache legCache) {
+        this.legCache = legCache;
+        // A view over the store, so airports read from a mapped file are only created when used
+        this.airports = airportStore.asMap();
+        this.airplanes = Collections.unmodifiableMap(new HashMap<>(airplanes));
+        this.airportStore = airportStore;
+        this.spatialIndex = new AirportSpatialIndex(airportStore);
+        this.router = new RefuelRouter(spatialIndex, RefuelRouter.Objective.FEWEST_STOPS);
+        this.fuelIndex = new FuelPartitionedIndex(airportStore, RefuelRouter.Objective.FEWEST_STOPS);
+        this.fleetIndex = new FleetIndex(this.airplanes.values());
+    }
+
+    /**
+     * Gets the airports known to this service
+     * @return Unmodifiable map of airports by key
+     */
+    public Map<Integer, Airport> getAirports() {
+        return airports;
+    }
+
+    /**
+     * Gets the airplanes known to this service
+     * @return Unmodifiable map of airplanes by key
+     */
+    public Map<Integer, Airplane> getAirplanes() {
+        return airplanes;
+    }
+
+    /**
+     * Gets the columnar copy of the airports used for bulk scans
+     * @return The airport store
+     */
+    public AirportStore getAirportStore() {
+        return airportStore;
+    }
+
+    /**
+     * Gets the cache holding computed leg metrics
+     * @return The leg cache
+     */
+    public LegCache getLegCache() {
+        return legCache;
+    }
+
+    /**
+     * Plans a flight through the given airports, adding refuel stops where needed
+     * @param airportKeys Ordered airport keys: departure, any stops, destination
+     * @param airplaneKey Key of the airplane to fly
+     * @return The computed flight plan (check isPossible for unreachable routes)
+     * @throws IllegalArgumentException if a key is unknown or the route is invalid
+     */
+    public FlightPlan plan(List<Integer> airportKeys, int airplaneKey) {
+        return plan(airportKeys, airplaneKey, NO_PROGRESS);
+    }
+
+    /**
+     * Plans a flight through the given airports, reporting progress leg by leg
+     * @param airportKeys Ordered airport keys: departure, any stops, destination
+     * @param airplaneKey Key of the airplane to fly
+     * @param progress Told as each leg of the requested route is started and planned
+     * @return The computed flight plan (check isPossible for unreachable routes)
+     * @throws IllegalArgumentException if a key is unknown or the route is invalid
+     * @throws CancellationException if the calling thread is interrupted while planning
+     */
+    public FlightPlan plan(List<Integer> airportKeys, int airplaneKey, ProgressListener progress) {
+        Airplane airplane = airplanes.get(airplaneKey);
+        if (airplane == null) {
+            throw new IllegalArgumentException("Invalid airplane key: " + airplaneKey);
+        }
+        if (airportKeys == null || airportKeys.size() < 2) {
+            throw new IllegalArgumentException("A route needs a departure and a destination airport");
+        }
+
+        // Resolve and validate the requested route
+        List<Airport> route = new ArrayList<>(airportKeys.size());
+        for (Integer key : airportKeys) {
+            Airport airport = key == null ? null : airports.get(key);
+            if (airport == null) {
+                throw new IllegalArgumentException("Invalid airport key: " + key);
+            }
+            if (!route.isEmpty() && route.get(route.size() - 1).getKey() == airport.getKey()) {
+                throw new IllegalArgumentException("The same airport cannot be used consecutively: " +
+                                                   airport.getName() + " (" + airport.getIcao() + ")");
+            }
+            route.add(airport);
+        }
+
+        // Insert refueling stops on any leg longer than the airplane's range, searching
+        // only airports that sell the airplane's fuel when it has a partition
+        RefuelRouter fuelRouter = FuelPartitionedIndex.isPartitioned(airplane.getFuelType())
+            ? fuelIndex.getRouter(airplane.getFuelType())
+            : router;
+        double maxLegDistance = airplane.getFuelSize() / airplane.getFuelBurn() * airplane.getAirspeed();
+        List<Airport> routeWithRefuel = new ArrayList<>();
+        List<Airport> refuelStops = new ArrayList<>();
+        routeWithRefuel.add(route.get(0));
+        int legCount = route.size() - 1;
+        for (int i = 1; i < route.size(); i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Flight planning cancelled");
+            }
+            Airport prev = route.get(i - 1);
+            Airport current = route.get(i);
+            double legDistance = legCache.distance(prev, current);
+            progress.legStarted(i - 1, legCount, prev, current, legDistance > maxLegDistance);
+
+            if (legDistance > maxLegDistance) {
+                List<Airport> stops = fuelRouter.findStops(prev, current, maxLegDistance,
+                                                            stop -> isFuelCompatible(airplane, stop));
+                if (stops.isEmpty()) {
+                    String reason = String.format(
+                        "No suitable refueling airports between %s and %s (distance: %.1f nm, max range: %.1f nm)",
+                        prev.getName(), current.getName(), legDistance, maxLegDistance);
+                    // An impossible plan reports the legs as requested
+                    return new FlightPlan(airplane, route, route, Collections.emptyList(),
+                                          buildLegs(route, route, airplane), reason);
+                }
+                routeWithRefuel.addAll(stops);
+                refuelStops.addAll(stops);
+            }
+            routeWithRefuel.add(current);
+            progress.legPlanned(i - 1, legCount, refuelStops.size());
+        }
+
+        return new FlightPlan(airplane, route, routeWithRefuel, refuelStops,
+                              buildLegs(routeWithRefuel, route, airplane), null);
+    }
+
+    /**
+     * Finds every airplane that can fly between two airports without a refuel stop
+     * The leg distance is computed once; airplanes with at least that range are then
+     * read from the fleet's range-sorted index, only for fuels sold at the departure
+     * airport so the airplane can fill its tanks before leaving.
+     * @param fromKey Key of the departure airport
+     * @param toKey Key of the arrival airport
+     * @return The leg distance and the qualifying airplanes, shortest range first
+     * @throws IllegalArgumentException if a key is unknown or both are the same airport
+     */
+    public NonstopOptions nonstop(int fromKey, int toKey) {
+        Airport from = airports.get(fromKey);
+        Airport to = airports.get(toKey);
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Invalid airport key: " + (from == null ? fromKey : toKey));
+        }
+        if (fromKey == toKey) {
+            throw new IllegalArgumentException("Departure and arrival must be different airports");
+        }
+
+        double distance = legCache.distance(from, to);
+        // An airport selling both fuels (type 3) suits every airplane, see isFuelCompatible
+        int fuelType = from.getFuelType() == 3 ? 0 : from.getFuelType();
+        List<Airplane> qualifying = fleetIndex.withRange(fuelType, distance);
+        return new NonstopOptions(from, to, distance, qualifying);
+    }
+
+    /**
+     * Checks if an airplane can refuel at an airport
+     * @param airplane The airplane (fuel type 1 or 2)
+     * @param airport The airport (fuel type 1, 2, or 3 for both)
+     * @return true if the airport sells the airplane's fuel
+     */
+    public static boolean isFuelCompatible(Airplane airplane, Airport airport) {
+        int airportFuelType = airport.getFuelType();
+        return airplane.getFuelType() == airportFuelType || airportFuelType == 3;
+    }
+
+    // Computes distance, heading and time for every leg of a route
+    private List<FlightPlan.Leg> buildLegs(List<Airport> flown, List<Airport> requested, Airplane airplane) {
+        List<FlightPlan.Leg> legs = new ArrayList<>(flown.size() - 1);
+        double[] metrics = new double[2];
+        for (int i = 0; i < flown.size() - 1; i++) {
+            Airport from = flown.get(i);
+            Airport to = flown.get(i + 1);
+            legCache.leg(from, to, metrics);
+            double distance = metrics[GreatCircle.DISTANCE];
+            boolean refuelLeg = !requested.contains(from) || !requested.contains(to);
+            legs.add(new FlightPlan.Leg(from, to, distance, metrics[GreatCircle.HEADING],
+                                        distance / airplane.getAirspeed(), refuelLeg));
+        }
+        return legs;
+    }
+
+    /**
+     * Airplanes able to fly one leg nonstop
+     */
+    public static final class NonstopOptions {
+        private final Airport from;
+        private final Airport to;
+        private final double distance;
+        private final List<Airplane> airplanes;
+
+        NonstopOptions(Airport from, Airport to, double distance, List<Airplane> airplanes) {
+            this.from = from;
+            this.to = to;
+            this.distance = distance;
+            this.airplanes = airplanes;
+        }
+
+        public Airport getFrom() { return from; }
+        public Airport getTo() { return to; }
+        public double getDistance() { return distance; }
+        public List<Airplane> getAirplanes() { return airplanes; }
+
+        /**
+         * Computes how long an airplane takes to fly the leg
+         * @param airplane One of the qualifying airplanes
+         * @return Flight time in hours
+         */
+        public double flightTime(Airplane airplane) {
+            return distance / airplane.getAirspeed();
+        }
+    }
+}
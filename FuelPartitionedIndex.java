@@ -0,0 +1,87 @@
+/**
+ * Refuel candidate indices partitioned by the fuel an airport sells.
+ * Each airplane fuel type (1 = AVGAS, 2 = Jet) gets its own store, spatial
+ * index and router holding only airports that sell that fuel; airports with
+ * fuel type 3 sell both and belong to both partitions. Routing for a Jet
+ * airplane then never visits an AVGAS-only field. The partitions are built
+ * once from a snapshot of the airports and never change, so they can be read
+ * by any number of threads without locking; planning with edited airports
+ * means building a new index (FlightPlanService does this with each snapshot).
+ */
+public class FuelPartitionedIndex {
+    // Airplane fuel types with their own partition
+    private static final int[] FUEL_TYPES = {1, 2};
+
+    private final Partition[] partitions = new Partition[FUEL_TYPES.length + 1];
+
+    /**
+     * Builds the partitions from a snapshot of the airports
+     * @param airports Columnar store of every airport
+     * @param objective What the partition routers should minimize
+     */
+    public FuelPartitionedIndex(AirportStore airports, RefuelRouter.Objective objective) {
+        for (int fuelType : FUEL_TYPES) {
+            partitions[fuelType] = new Partition(airports.withFuel(fuelType), objective);
+        }
+    }
+
+    /**
+     * Checks if an airplane fuel type has its own partition
+     * @param fuelType The airplane fuel type
+     * @return true for fuel types 1 and 2
+     */
+    public static boolean isPartitioned(int fuelType) {
+        return fuelType == 1 || fuelType == 2;
+    }
+
+    /**
+     * Gets the airports that sell an airplane's fuel
+     * @param fuelType The airplane fuel type (1 or 2)
+     * @return Columnar store of compatible airports
+     * @throws IllegalArgumentException if the fuel type has no partition
+     */
+    public AirportStore getStore(int fuelType) {
+        return partition(fuelType).store;
+    }
+
+    /**
+     * Gets the spatial index of airports that sell an airplane's fuel
+     * @param fuelType The airplane fuel type (1 or 2)
+     * @return Spatial index of compatible airports
+     * @throws IllegalArgumentException if the fuel type has no partition
+     */
+    public AirportSpatialIndex getIndex(int fuelType) {
+        return partition(fuelType).index;
+    }
+
+    /**
+     * Gets a router whose candidate stops all sell an airplane's fuel
+     * @param fuelType The airplane fuel type (1 or 2)
+     * @return Router over the compatible airports
+     * @throws IllegalArgumentException if the fuel type has no partition
+     */
+    public RefuelRouter getRouter(int fuelType) {
+        return partition(fuelType).router;
+    }
+
+    // Returns the partition for a fuel type
+    private Partition partition(int fuelType) {
+        if (!isPartitioned(fuelType)) {
+            throw new IllegalArgumentException("No airport partition for fuel type: " + fuelType);
+        }
+        return partitions[fuelType];
+    }
+
+    // Store, index and router for one fuel type, built together
+    private static final class Partition {
+        final AirportStore store;
+        final AirportSpatialIndex index;
+        final RefuelRouter router;
+
+        Partition(AirportStore store, RefuelRouter.Objective objective) {
+            this.store = store;
+            this.index = new AirportSpatialIndex(store);
+            this.router = new RefuelRouter(index, objective);
+        }
+    }
+}
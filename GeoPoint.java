@@ -0,0 +1,34 @@
+/**
+ * Precomputed trigonometry for a position on the earth.
+ * Airports build one of these when they are created or loaded, so distance
+ * and heading calculations in hot loops only need a few multiplications
+ * instead of repeated degree conversions and sin/cos calls.
+ */
+public final class GeoPoint {
+    public final double latRad;  // Latitude in radians
+    public final double lonRad;  // Longitude in radians
+    public final double sinLat;
+    public final double cosLat;
+    public final double sinLon;
+    public final double cosLon;
+    public final double x;       // Unit vector pointing from the earth's center
+    public final double y;
+    public final double z;
+
+    /**
+     * Creates a point from decimal-degree coordinates
+     * @param latitude Latitude in degrees
+     * @param longitude Longitude in degrees
+     */
+    public GeoPoint(double latitude, double longitude) {
+        this.latRad = Math.toRadians(latitude);
+        this.lonRad = Math.toRadians(longitude);
+        this.sinLat = Math.sin(latRad);
+        this.cosLat = Math.cos(latRad);
+        this.sinLon = Math.sin(lonRad);
+        this.cosLon = Math.cos(lonRad);
+        this.x = cosLat * cosLon;
+        this.y = cosLat * sinLon;
+        this.z = sinLat;
+    }
+}
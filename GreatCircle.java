@@ -0,0 +1,86 @@
+/**
+ * Great-circle navigation math shared by the flight planning components.
+ * All distances are in nautical miles and all headings in degrees true.
+ * The calculations work on each airport's precomputed GeoPoint, so they
+ * need no degree conversions, no sin/cos of the endpoints and no allocation.
+ */
+public final class GreatCircle {
+    // Earth radius in nautical miles
+    public static final double EARTH_RADIUS_NM = 3440.1;
+
+    // Slots filled in by leg()
+    public static final int DISTANCE = 0;
+    public static final int HEADING = 1;
+
+    private GreatCircle() {
+    }
+
+    /**
+     * Calculates the great-circle distance between two airports
+     * @param a1 The first airport
+     * @param a2 The second airport
+     * @return Distance in nautical miles
+     */
+    public static double distance(Airport a1, Airport a2) {
+        return distance(a1.getGeo(), a2.getGeo());
+    }
+
+    /**
+     * Calculates the initial heading from one airport to another
+     * @param from The departure airport
+     * @param to The arrival airport
+     * @return Initial true heading normalized to 0-360 degrees
+     */
+    public static double heading(Airport from, Airport to) {
+        return heading(from.getGeo(), to.getGeo());
+    }
+
+    /**
+     * Calculates the great-circle distance between two points
+     * @param p1 The first point
+     * @param p2 The second point
+     * @return Distance in nautical miles
+     */
+    public static double distance(GeoPoint p1, GeoPoint p2) {
+        // Haversine term from the chord between unit vectors: a = sin^2(c/2) = (chord/2)^2
+        double dx = p1.x - p2.x;
+        double dy = p1.y - p2.y;
+        double dz = p1.z - p2.z;
+        double a = Math.min(1.0, (dx * dx + dy * dy + dz * dz) * 0.25);
+        return EARTH_RADIUS_NM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Calculates the initial heading from one point to another
+     * @param from The departure point
+     * @param to The arrival point
+     * @return Initial true heading normalized to 0-360 degrees
+     */
+    public static double heading(GeoPoint from, GeoPoint to) {
+        // cos(lat2)*sin(dLon) and cos(lat2)*cos(dLon) rotated out of the arrival unit vector
+        double y = to.y * from.cosLon - to.x * from.sinLon;
+        double meridian = to.x * from.cosLon + to.y * from.sinLon;
+        double x = from.cosLat * to.sinLat - from.sinLat * meridian;
+
+        double heading = Math.toDegrees(Math.atan2(y, x));
+        return (heading + 360) % 360;
+    }
+
+    /**
+     * Calculates distance and initial heading of a leg in one pass
+     * @param from The departure point
+     * @param to The arrival point
+     * @param out Receives the distance at [DISTANCE] and the heading at [HEADING]
+     */
+    public static void leg(GeoPoint from, GeoPoint to, double[] out) {
+        double dx = from.x - to.x;
+        double dy = from.y - to.y;
+        double dz = from.z - to.z;
+        double a = Math.min(1.0, (dx * dx + dy * dy + dz * dz) * 0.25);
+        out[DISTANCE] = EARTH_RADIUS_NM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        double y = to.y * from.cosLon - to.x * from.sinLon;
+        double x = from.cosLat * to.sinLat - from.sinLat * (to.x * from.cosLon + to.y * from.sinLon);
+        out[HEADING] = (Math.toDegrees(Math.atan2(y, x)) + 360) % 360;
+    }
+}
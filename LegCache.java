@@ -0,0 +1,205 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of leg metrics keyed by (from, to) airport key pair.
+ * Planners ask for the same city pairs over and over, so the distance and
+ * initial heading of each directed leg are kept until the cache is full, then
+ * the least recently used leg is evicted. A cache belongs to one planning
+ * snapshot of the airports; each entry also remembers the coordinates it was
+ * computed from, so a cache handed to a service built from newer data treats
+ * legs of moved airports as misses instead of returning stale metrics.
+ * The cache is split into independently locked stripes so parallel planners
+ * rarely wait on each other; eviction is least recently used within a stripe.
+ * All methods are thread-safe.
+ */
+public class LegCache {
+    // Default number of legs kept
+    public static final int DEFAULT_CAPACITY = 10_000;
+    // Number of independently locked stripes (a power of two)
+    private static final int STRIPES = 16;
+
+    // Layout of a cached entry
+    private static final int FROM_LAT = 2;
+    private static final int FROM_LON = 3;
+    private static final int TO_LAT = 4;
+    private static final int TO_LON = 5;
+
+    private final int capacity;
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a cache holding up to DEFAULT_CAPACITY legs
+     */
+    public LegCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache holding up to the given number of legs
+     * @param capacity Maximum number of cached legs
+     */
+    public LegCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Leg cache capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        // Small caches use fewer stripes so every stripe can hold at least one leg
+        int count = Integer.highestOneBit(Math.min(STRIPES, capacity));
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            // Spread the capacity so the stripes add up to exactly the requested total
+            stripes[i] = new Stripe(capacity / count + (i < capacity % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Packs a directed airport pair into a single cache key
+     * @param fromKey Departure airport key
+     * @param toKey Arrival airport key
+     * @return The packed key
+     */
+    public static long pairKey(int fromKey, int toKey) {
+        return ((long) fromKey << 32) | (toKey & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the metrics of a leg, computing and caching them on a miss
+     * @param from The departure airport
+     * @param to The arrival airport
+     * @param out Receives the distance at [GreatCircle.DISTANCE] and the heading at [GreatCircle.HEADING]
+     */
+    public void leg(Airport from, Airport to, double[] out) {
+        long key = pairKey(from.getKey(), to.getKey());
+        Stripe stripe = stripeOf(key);
+        double[] cached;
+        synchronized (stripe) {
+            cached = stripe.get(key);
+        }
+        if (cached != null && cached[FROM_LAT] == from.getLatitude() && cached[FROM_LON] == from.getLongitude()
+                && cached[TO_LAT] == to.getLatitude() && cached[TO_LON] == to.getLongitude()) {
+            hits.increment();
+            out[GreatCircle.DISTANCE] = cached[GreatCircle.DISTANCE];
+            out[GreatCircle.HEADING] = cached[GreatCircle.HEADING];
+            return;
+        }
+        misses.increment();
+
+        // Compute outside the lock; a racing thread computing the same leg is harmless
+        double[] metrics = new double[6];
+        GreatCircle.leg(from.getGeo(), to.getGeo(), metrics);
+        metrics[FROM_LAT] = from.getLatitude();
+        metrics[FROM_LON] = from.getLongitude();
+        metrics[TO_LAT] = to.getLatitude();
+        metrics[TO_LON] = to.getLongitude();
+        synchronized (stripe) {
+            stripe.put(key, metrics);
+        }
+        out[GreatCircle.DISTANCE] = metrics[GreatCircle.DISTANCE];
+        out[GreatCircle.HEADING] = metrics[GreatCircle.HEADING];
+    }
+
+    /**
+     * Gets the great-circle distance of a leg through the cache
+     * @param from The departure airport
+     * @param to The arrival airport
+     * @return Distance in nautical miles
+     */
+    public double distance(Airport from, Airport to) {
+        double[] metrics = new double[2];
+        leg(from, to, metrics);
+        return metrics[GreatCircle.DISTANCE];
+    }
+
+    /**
+     * Drops every cached leg that starts or ends at an airport
+     * @param airportKey Key of the changed airport
+     */
+    public void invalidate(int airportKey) {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<Long> keys = stripe.keySet().iterator();
+                while (keys.hasNext()) {
+                    long key = keys.next();
+                    if ((int) (key >>> 32) == airportKey || (int) key == airportKey) {
+                        keys.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops every cached leg and resets the counters
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    // Statistics accessors
+    public int getCapacity() { return capacity; }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+
+    /**
+     * Gets the number of cached legs
+     * @return The leg count
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the fraction of lookups served from the cache
+     * @return Hit ratio between 0 and 1 (0 before the first lookup)
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LegCache[%d/%d legs, %d hits, %d misses]", size(), capacity, getHits(), getMisses());
+    }
+
+    // Picks the stripe for a key, mixing both airport keys into the low bits
+    private Stripe stripeOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 32) & (stripes.length - 1)];
+    }
+
+    // One access-ordered LRU segment, guarded by its own monitor
+    private static final class Stripe extends LinkedHashMap<Long, double[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, double[]> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -2,107 +2,184 @@
 import java.awt.Desktop;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import javax.swing.*;
 
 // Main class that serves as the entry point for the Flight Planner application
 public class Main {
     // Main method - entry point of the application
     public static void main(String[] args) {
-        // Use SwingUtilities to ensure GUI operations are performed on the Event Dispatch Thread
-        SwingUtilities.invokeLater(() -> {
-            // Load airport and airplane databases from files
-            Map<Integer, Airport> airports = loadAirportsFromFile("airports.dat");
-            Map<Integer, Airplane> airplanes = loadAirplanesFromFile("airplanes.dat");
-           
-            // Check if databases loaded successfully and are not empty
-            if (airports == null || airplanes == null || airports.isEmpty() || airplanes.isEmpty()) {
-                // Create error message with loading statistics
-                String message = "Error: Failed to load databases or databases are empty!\n" +
-                               "Airports loaded: " + (airports != null ? airports.size() : 0) + "\n" +
-                               "Airplanes loaded: " + (airplanes != null ? airplanes.size() : 0);
-                // Show error dialog to user
-                JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE);
-                return; // Exit if databases couldn't be loaded
+        // Run headless when a batch file is given on the command line
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args));
+        }
+        // Serve plans over HTTP instead of opening the GUI
+        if (args.length > 0 && args[0].equals("--serve")) {
+            int status = runServer(args);
+            if (status != 0) {
+                System.exit(status);
             }
-           
-            // Create and show the main GUI interface with loaded databases
-            new FlightPlannerGUI().showMainMenu(airports, airplanes);
-        });
+            return;
+        }
+
+        // Load both databases concurrently in the background so the event thread stays free
+        ExecutorService loaders = BackgroundExecutors.newTaskExecutor("database-loader", 2);
+        CompletableFuture<Map<Integer, Airport>> airports = loadAsync(() -> readAirports("airports.dat"), "airports.dat", loaders);
+        CompletableFuture<Map<Integer, Airplane>> airplanes = loadAsync(() -> readAirplanes("airplanes.dat"), "airplanes.dat", loaders);
+        loaders.shutdown();
+
+        // Open the menu right away; the databases are only waited for when a plan needs them
+        SwingUtilities.invokeLater(() -> new FlightPlannerGUI().showMainMenu(airports, airplanes));
     }
 
-    // Method to load airports from a serialized file
-    @SuppressWarnings("unchecked")
-    private static Map<Integer, Airport> loadAirportsFromFile(String filename) {
-        // Check if file exists
-        File file = new File(filename);
-        if (!file.exists()) {
-            // Show warning if file not found
-            JOptionPane.showMessageDialog(null, "Airport database file not found: " + filename, 
-                                       "Warning", JOptionPane.WARNING_MESSAGE);
-            return new HashMap<>(); // Return empty map
+    // Method to run a database loader on a background thread
+    private static <T> CompletableFuture<T> loadAsync(Callable<T> loader, String filename, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (!new File(filename).exists()) {
+                throw new CompletionException(new FileNotFoundException(filename));
+            }
+            try {
+                return loader.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    // Method to plan a CSV schedule without the GUI: --batch <routes.csv> [--out <plans.csv>]
+    private static int runBatch(String[] args) {
+        String inputFile = args.length > 1 ? args[1] : null;
+        String outputFile = null;
+        for (int i = 2; i < args.length - 1; i++) {
+            if (args[i].equals("--out")) {
+                outputFile = args[i + 1];
+            }
+        }
+        if (inputFile == null) {
+            System.err.println("Usage: java Main --batch <routes.csv> [--out <plans.csv>]");
+            return 2;
         }
 
-        // Try-with-resources to ensure stream is closed properly
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
-            // Read the object from file
-            Object obj = ois.readObject();
-            // Check if object is of expected type
-            if (obj instanceof Map) {
-                return (Map<Integer, Airport>) obj; // Return the loaded map
-            } else {
-                // Show error if file contains unexpected type
-                JOptionPane.showMessageDialog(null, "Unexpected object type in airport file: " + obj.getClass(),
-                                           "Error", JOptionPane.ERROR_MESSAGE);
-                return new HashMap<>(); // Return empty map
+        try {
+            // Load both databases and build the shared planning service
+            FlightPlanService service = new FlightPlanService(readAirportStore("airports.dat"),
+                                                              readAirplanes("airplanes.dat"), new LegCache());
+            long start = System.nanoTime();
+            long planned;
+            try (Reader in = new BufferedReader(new FileReader(inputFile));
+                 Writer out = outputFile != null
+                     ? new BufferedWriter(new FileWriter(outputFile))
+                     : new BufferedWriter(new OutputStreamWriter(System.out))) {
+                planned = new BatchPlanner(service).run(in, out);
             }
+            System.err.printf("Planned %d routes in %.1f seconds%n", planned, (System.nanoTime() - start) / 1e9);
+            System.err.println(service.getLegCache());
+            if (DistanceKernel.getFallbackReason() != null) {
+                System.err.println("Vector distance kernel unavailable, used scalar: " + DistanceKernel.getFallbackReason());
+            }
+            return 0;
         } catch (IOException | ClassNotFoundException e) {
-            // Show error if loading fails
-            JOptionPane.showMessageDialog(null, "Error loading airport database from " + filename + ": " + e.getMessage(),
-                                       "Error", JOptionPane.ERROR_MESSAGE);
-            return new HashMap<>(); // Return empty map
+            System.err.println("Batch planning failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    // Method to serve plans over HTTP: --serve [port] [--max-concurrent <n>]
+    private static int runServer(String[] args) {
+        int port = 8080;
+        int maxConcurrent = 256;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--max-concurrent") && i + 1 < args.length) {
+                    maxConcurrent = Integer.parseInt(args[++i]);
+                } else {
+                    port = Integer.parseInt(args[i]);
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Usage: java Main --serve [port] [--max-concurrent <n>]");
+            return 2;
+        }
+
+        // Send responses without waiting on Nagle's algorithm; the built-in server writes headers and
+        // body separately, which otherwise stalls each keep-alive response on the client's delayed ACK.
+        // The server reads this once, when the first one is created, so it must be set before then.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
+        try {
+            FlightPlanService service = new FlightPlanService(readAirportStore("airports.dat"),
+                                                              readAirplanes("airplanes.dat"), new LegCache());
+            AirportSearchIndex searchIndex = new AirportSearchIndex(service.getAirports().values());
+            PlanServer server = new PlanServer(service, searchIndex, port, maxConcurrent);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(2)));
+            server.start();
+            System.err.printf("Serving %d airports and %d airplanes on port %d (%s, max %d concurrent requests)%n",
+                              service.getAirports().size(), service.getAirplanes().size(), server.getPort(),
+                              BackgroundExecutors.hasVirtualThreads() ? "virtual threads" : "platform threads",
+                              maxConcurrent);
+            return 0;
+        } catch (IOException | ClassNotFoundException | IllegalArgumentException e) {
+            System.err.println("Could not start plan server: " + e.getMessage());
+            return 1;
         }
     }
 
-    // Method to load airplanes from a serialized file
+    // Method to read airports from a binary or serialized file, throwing on any problem
     @SuppressWarnings("unchecked")
-    private static Map<Integer, Airplane> loadAirplanesFromFile(String filename) {
-        // Check if file exists
+    static Map<Integer, Airport> readAirports(String filename) throws IOException, ClassNotFoundException {
         File file = new File(filename);
-        if (!file.exists()) {
-            // Show warning if file not found
-            JOptionPane.showMessageDialog(null, "Airplane database file not found: " + filename,
-                                       "Warning", JOptionPane.WARNING_MESSAGE);
-            return new HashMap<>(); // Return empty map
+        Map<Integer, Airport> airports;
+        if (AirportFile.isBinary(file.toPath())) {
+            airports = AirportFile.read(file.toPath()).toMap();
+        } else {
+            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
+                Object obj = ois.readObject();
+                if (!(obj instanceof Map)) {
+                    throw new IOException("Unexpected object type in airport file: " + obj.getClass());
+                }
+                airports = (Map<Integer, Airport>) obj;
+            }
+        }
+        // Apply edits logged since the snapshot was written
+        AirportChangeLog.replay(new File(filename + ".log").toPath(), airports);
+        return airports;
+    }
+
+    // Method to read airports into a columnar store, straight from the file's bytes when it is binary
+    // and no logged edits need to be applied on top; the file itself is not kept open
+    static AirportStore readAirportStore(String filename) throws IOException, ClassNotFoundException {
+        File file = new File(filename);
+        File log = new File(filename + ".log");
+        File rotatedLog = new File(filename + ".log.1");
+        if (AirportFile.isBinary(file.toPath()) && log.length() == 0 && rotatedLog.length() == 0) {
+            return AirportStore.from(AirportFile.read(file.toPath()));
         }
+        return AirportStore.from(readAirports(filename));
+    }
 
-        // Try-with-resources to ensure stream is closed properly
+    // Method to read airplanes from a serialized file (ArrayList or Map format), throwing on any problem
+    @SuppressWarnings("unchecked")
+    static Map<Integer, Airplane> readAirplanes(String filename) throws IOException, ClassNotFoundException {
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(filename))) {
-            // Read the object from file
             Object obj = ois.readObject();
-            
-            // Handle both possible formats (ArrayList or Map)
             if (obj instanceof ArrayList) {
-                // Convert ArrayList to Map if needed
-                ArrayList<Airplane> airplaneList = (ArrayList<Airplane>) obj;
+                // Convert ArrayList to Map keyed by airplane key
                 Map<Integer, Airplane> airplaneMap = new HashMap<>();
-                for (Airplane airplane : airplaneList) {
+                for (Airplane airplane : (ArrayList<Airplane>) obj) {
                     airplaneMap.put(airplane.getKey(), airplane);
                 }
                 return airplaneMap;
             } else if (obj instanceof Map) {
-                // Return directly if already a Map
                 return (Map<Integer, Airplane>) obj;
-            } else {
-                // Show error if file contains unexpected type
-                JOptionPane.showMessageDialog(null, "Unexpected object type in airplane file: " + obj.getClass(),
-                                           "Error", JOptionPane.ERROR_MESSAGE);
-                return new HashMap<>(); // Return empty map
             }
-        } catch (IOException | ClassNotFoundException e) {
-            // Show error if loading fails
-            JOptionPane.showMessageDialog(null, "Error loading airplane database from " + filename + ": " + e.getMessage(),
-                                       "Error", JOptionPane.ERROR_MESSAGE);
-            return new HashMap<>(); // Return empty map
+            throw new IOException("Unexpected object type in airplane file: " + obj.getClass());
         }
     }
 }
@@ -113,16 +190,27 @@ class FlightPlannerGUI {
     private static final String DISCLAIMER = 
         "DISCLAIMER:\n\n" +
         "THIS SOFTWARE IS NOT TO BE USED FOR FLIGHT PLANNING OR NAVIGATIONAL PURPOSES\n";
+
+    // Planning service, and the databases it was built from
+    private FlightPlanService service;
+    private Map<Integer, Airport> plannedAirports;
+    private Map<Integer, Airplane> plannedAirplanes;
         
-    // Method to display the main menu and handle user choices
+    // Method to display the main menu for databases that are already loaded
     public void showMainMenu(Map<Integer, Airport> airports, Map<Integer, Airplane> airplanes) {
+        showMainMenu(CompletableFuture.completedFuture(airports), CompletableFuture.completedFuture(airplanes));
+    }
+
+    // Method to display the main menu and handle user choices while the databases may still be loading
+    public void showMainMenu(CompletableFuture<Map<Integer, Airport>> airportsLoad,
+                             CompletableFuture<Map<Integer, Airplane>> airplanesLoad) {
         // Main menu loop
         while (true) {
             // Show disclaimer every time the menu is displayed
             JOptionPane.showMessageDialog(null, DISCLAIMER, "Important Notice", JOptionPane.WARNING_MESSAGE);
             
             // Menu options
-            String[] options = {"Create Flight Plan", "Exit"};
+            String[] options = {"Create Flight Plan", "Nonstop Aircraft", "Compare Fleet", "Exit"};
             // Show option dialog to user
             int choice = JOptionPane.showOptionDialog(null, 
                 "Flight Planning System (Recreational Use Only)",
@@ -134,14 +222,80 @@ class FlightPlannerGUI {
                 options[0]);
             
             // Handle user choice
-            if (choice == 1 || choice == JOptionPane.CLOSED_OPTION) {
+            if (choice == 3 || choice == JOptionPane.CLOSED_OPTION) {
                 // Exit option chosen
                 JOptionPane.showMessageDialog(null, "Thank you for using the Flight Planner", "Goodbye", JOptionPane.INFORMATION_MESSAGE);
                 return; // Exit program
             }
             
-            // User chose to create flight plan
-            createFlightPlan(airports, airplanes);
+            // Every remaining choice needs both databases
+            awaitLoads(airportsLoad, airplanesLoad);
+            Map<Integer, Airport> airports = loadedDatabase(airportsLoad, "Airport", "airports.dat");
+            Map<Integer, Airplane> airplanes = loadedDatabase(airplanesLoad, "Airplane", "airplanes.dat");
+            if (choice == 1) {
+                showNonstopAirplanes(airports, airplanes);
+            } else if (choice == 2) {
+                compareFleet(airports, airplanes);
+            } else {
+                createFlightPlan(airports, airplanes);
+            }
+        }
+    }
+
+    // Method to show a progress splash until the background loads finish (returns at once if they have)
+    private void awaitLoads(CompletableFuture<?> airportsLoad, CompletableFuture<?> airplanesLoad) {
+        if (airportsLoad.isDone() && airplanesLoad.isDone()) {
+            return;
+        }
+
+        // One status line per database, updated as each load completes
+        JLabel airportStatus = new JLabel();
+        JLabel airplaneStatus = new JLabel();
+        JProgressBar progress = new JProgressBar();
+        progress.setIndeterminate(true);
+        JPanel panel = new JPanel(new java.awt.GridLayout(0, 1, 5, 5));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(new JLabel("Loading databases, please wait..."));
+        panel.add(airportStatus);
+        panel.add(airplaneStatus);
+        panel.add(progress);
+
+        JDialog splash = new JDialog((java.awt.Frame) null, "Flight Planner", true);
+        splash.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        splash.setContentPane(panel);
+        splash.setSize(320, 150);
+        splash.setLocationRelativeTo(null);
+
+        Runnable refresh = () -> {
+            airportStatus.setText("Airports: " + (airportsLoad.isDone() ? "done" : "loading..."));
+            airplaneStatus.setText("Airplanes: " + (airplanesLoad.isDone() ? "done" : "loading..."));
+            if (airportsLoad.isDone() && airplanesLoad.isDone()) {
+                splash.dispose();
+            }
+        };
+        refresh.run();
+        // Completion callbacks run on loader threads, so hop back to the event thread;
+        // the modal dialog keeps dispatching events, so a load that finishes first still closes it
+        airportsLoad.whenComplete((result, error) -> SwingUtilities.invokeLater(refresh));
+        airplanesLoad.whenComplete((result, error) -> SwingUtilities.invokeLater(refresh));
+        splash.setVisible(true);
+    }
+
+    // Method to get a finished load's result, reporting failures the way the synchronous loaders did
+    private <T> Map<Integer, T> loadedDatabase(CompletableFuture<Map<Integer, T>> load, String label, String filename) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof FileNotFoundException) {
+                JOptionPane.showMessageDialog(null, label + " database file not found: " + filename,
+                                           "Warning", JOptionPane.WARNING_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(null, "Error loading " + label.toLowerCase() + " database from " +
+                                           filename + ": " + cause.getMessage(),
+                                           "Error", JOptionPane.ERROR_MESSAGE);
+            }
+            return new HashMap<>(); // Plan with an empty database, which createFlightPlan reports
         }
     }
 
@@ -157,99 +311,12 @@ class FlightPlannerGUI {
             return;
         }
 
-        // Display available airports to user
-        StringBuilder airportsList = new StringBuilder("Available Airports:\n");
-        for (Airport airport : airports.values()) {
-            airportsList.append("Key: ").append(airport.getKey())
-                       .append(" | Name: ").append(airport.getName())
-                       .append(" | ICAO: ").append(airport.getIcao())
-                       .append("\n");
-        }
-
-        // Get departure airport selection from user
-        Integer departureKey = getSelectionFromUser(airportsList.toString(), "Enter departure airport key:");
-        if (departureKey == null) return; // User cancelled
-        Airport departureAirport = airports.get(departureKey);
-        if (departureAirport == null) {
-            JOptionPane.showMessageDialog(null, "Invalid departure airport key!", "Error", JOptionPane.ERROR_MESSAGE);
-            return;
-        }
-
-        // Create list to store the flight route (starting with departure)
-        List<Airport> route = new ArrayList<>();
-        route.add(departureAirport);
-
-        // Allow user to add intermediate stops
-        while (true) {
-            // Ask user if they want to add a stop
-            int response = JOptionPane.showConfirmDialog(null, 
-                "Would you like to add an intermediate stop?", 
-                "Add Stop", 
-                JOptionPane.YES_NO_OPTION);
-            
-            // Break if user doesn't want to add more stops
-            if (response != JOptionPane.YES_OPTION) {
-                break;
-            }
-            
-            // Loop for adding a single stop
-            while (true) {
-                // Get stop selection from user
-                Integer stopKey = getSelectionFromUser(airportsList.toString(), "Enter intermediate airport key:");
-                if (stopKey == null) break; // User cancelled
-                
-                // Validate selection
-                Airport stopAirport = airports.get(stopKey);
-                if (stopAirport == null) {
-                    JOptionPane.showMessageDialog(null, "Invalid airport key!", "Error", JOptionPane.ERROR_MESSAGE);
-                    continue;
-                }
-                
-                // Check if same as last airport (not allowed)
-                if (!route.isEmpty() && stopAirport.getKey() == route.get(route.size()-1).getKey()) {
-                    JOptionPane.showMessageDialog(null, 
-                        "Error: You cannot add the same airport consecutively!\n" +
-                        "Current last stop: " + route.get(route.size()-1).getName() + 
-                        " (" + route.get(route.size()-1).getIcao() + ")",
-                        "Invalid Stop", 
-                        JOptionPane.ERROR_MESSAGE);
-                    continue;
-                }
-                
-                // Add valid stop to route
-                route.add(stopAirport);
-                break;
-            }
-        }
+        // Filterable table of available airports, shared by every pick below
+        AirportPicker airportPicker = new AirportPicker(airports.values());
 
-        // Get destination airport selection from user
-        while (true) {
-            // Get destination selection
-            Integer destinationKey = getSelectionFromUser(airportsList.toString(), "Enter destination airport key:");
-            if (destinationKey == null) return; // User cancelled
-            
-            // Validate selection
-            Airport destinationAirport = airports.get(destinationKey);
-            if (destinationAirport == null) {
-                JOptionPane.showMessageDialog(null, "Invalid destination airport key!", "Error", JOptionPane.ERROR_MESSAGE);
-                continue;
-            }
-            
-            // Check if destination is same as last stop (not allowed)
-            if (!route.isEmpty() && destinationAirport.getKey() == route.get(route.size()-1).getKey()) {
-                JOptionPane.showMessageDialog(null, 
-                    "Error: Destination cannot be the same as your last stop!\n" +
-                    "Current last stop: " + route.get(route.size()-1).getName() + 
-                    " (" + route.get(route.size()-1).getIcao() + ")",
-                    "Invalid Destination", 
-                    JOptionPane.ERROR_MESSAGE);
-                continue;
-            }
-            
-            // Add valid destination to route
-            route.add(destinationAirport);
-            break;
-        }
+        // Get the route (departure, any stops, destination) from user
+        List<Airport> route = chooseRoute(airportPicker, "Flight Planner");
+        if (route == null) return; // User cancelled
 
         // Display available airplanes to user
         StringBuilder airplanesList = new StringBuilder("Available Airplanes:\n");
@@ -270,136 +337,55 @@ class FlightPlannerGUI {
             return;
         }
 
-        // Calculate flight details for each leg and totals
-        double totalDistance = 0;
-        double totalFlightTime = 0;
-        double averageHeading = 0;
-        int legCount = 0;
-        StringBuilder legsInfo = new StringBuilder();
-        List<Airport> fullRoute = new ArrayList<>();
-        boolean flightPossible = true;
-        String impossibilityReason = "";
-        
-        // Calculate initial route legs (between all selected airports)
-        for (int i = 0; i < route.size() - 1; i++) {
-            Airport from = route.get(i);
-            Airport to = route.get(i + 1);
-            // Calculate distance, heading and flight time for this leg
-            double distance = calculateDistance(from, to);
-            double heading = calculateHeading(from, to);
-            double flightTime = distance / airplane.getAirspeed();
-            
-            // Update totals
-            totalDistance += distance;
-            totalFlightTime += flightTime;
-            averageHeading += heading;
-            legCount++;
-            
-            // Add leg information to display string
-            legsInfo.append(String.format("Leg %d: %s (%s) to %s (%s)\n", legCount, 
-                from.getName(), from.getIcao(), to.getName(), to.getIcao()));
-            legsInfo.append(String.format("  Distance: %.2f nm | Time: %.2f hours | Heading: %.1f°\n\n", 
-                distance, flightTime, heading));
-            
-            fullRoute.add(from);
+        // Compute the plan with the headless planning service
+        List<Integer> routeKeys = new ArrayList<>();
+        for (Airport stop : route) {
+            routeKeys.add(stop.getKey());
         }
-        fullRoute.add(route.get(route.size()-1)); // Add final destination
-        
-        // Check if refueling stops are needed based on airplane range
-        double maxLegDistance = airplane.getFuelSize() / airplane.getFuelBurn() * airplane.getAirspeed();
-        List<Airport> routeWithRefuel = new ArrayList<>();
-        routeWithRefuel.add(fullRoute.get(0));
-        
-        // Find and add necessary refueling stops
-        for (int i = 1; i < fullRoute.size(); i++) {
-            Airport prev = routeWithRefuel.get(routeWithRefuel.size()-1);
-            Airport current = fullRoute.get(i);
-            double legDistance = calculateDistance(prev, current);
-            
-            // Check if this leg exceeds maximum range
-            if (legDistance > maxLegDistance) {
-                // Find suitable refueling stops
-                List<Airport> refuelStops = findRefuelStops(prev, current, airports, airplane, maxLegDistance);
-                if (refuelStops.isEmpty()) {
-                    flightPossible = false;
-                    impossibilityReason = String.format(
-                        "No suitable refueling airports between %s and %s (distance: %.1f nm, max range: %.1f nm)",
-                        prev.getName(), current.getName(), legDistance, maxLegDistance);
-                    break;
-                }
-                routeWithRefuel.addAll(refuelStops);
-            }
-            routeWithRefuel.add(current);
-        }
-        
-        // Recalculate totals if refueling stops were added
-        if (flightPossible && routeWithRefuel.size() > fullRoute.size()) {
-            totalDistance = 0;
-            totalFlightTime = 0;
-            averageHeading = 0;
-            legCount = 0;
-            legsInfo = new StringBuilder();
-            
-            // Recalculate all legs including refueling stops
-            for (int i = 0; i < routeWithRefuel.size() - 1; i++) {
-                Airport from = routeWithRefuel.get(i);
-                Airport to = routeWithRefuel.get(i + 1);
-                double distance = calculateDistance(from, to);
-                double heading = calculateHeading(from, to);
-                double flightTime = distance / airplane.getAirspeed();
-                
-                // Update totals
-                totalDistance += distance;
-                totalFlightTime += flightTime;
-                averageHeading += heading;
-                legCount++;
-                
-                // Determine if this is a main route leg or refueling leg
-                String legType = (i < route.size() && route.contains(from) && route.contains(to)) ? 
-                    "Main Route" : "Refuel Stop";
-                
-                // Add leg information to display string
-                legsInfo.append(String.format("%s Leg %d: %s (%s) to %s (%s)\n", legType, legCount,
-                    from.getName(), from.getIcao(), to.getName(), to.getIcao()));
-                legsInfo.append(String.format("  Distance: %.2f nm | Time: %.2f hours | Heading: %.1f°\n\n", 
-                    distance, flightTime, heading));
-            }
-            averageHeading /= legCount; // Calculate average heading
-        } else {
-            averageHeading /= legCount; // Calculate average heading
-        }
-
-        // Calculate total fuel needed
-        double fuelNeeded = totalFlightTime * airplane.getFuelBurn();
+        FlightPlan plan = computePlan(airports, airplanes, routeKeys, airplane.getKey());
+        if (plan == null) return; // Cancelled or failed (already reported)
+        boolean flightPossible = plan.isPossible();
 
         // Build flight plan summary message
         StringBuilder summary = new StringBuilder();
         summary.append("===== Flight Plan Summary =====\n");
-        summary.append("Route:\n").append(legsInfo);
+        summary.append("Route:\n");
+        int legCount = 0;
+        for (FlightPlan.Leg leg : plan.getLegs()) {
+            legCount++;
+            Airport from = leg.getFrom();
+            Airport to = leg.getTo();
+            // Label legs as main route or refueling legs when stops were added
+            String legType = plan.hasRefuelStops() ? (leg.isRefuelLeg() ? "Refuel Stop " : "Main Route ") : "";
+            summary.append(String.format("%sLeg %d: %s (%s) to %s (%s)\n", legType, legCount,
+                from.getName(), from.getIcao(), to.getName(), to.getIcao()));
+            summary.append(String.format("  Distance: %.2f nm | Time: %.2f hours | Heading: %.1f°\n\n", 
+                leg.getDistance(), leg.getFlightTime(), leg.getHeading()));
+        }
         summary.append("\nTOTALS:\n");
         
         // Add flight impossibility message if applicable
         if (!flightPossible) {
-            summary.append("FLIGHT IMPOSSIBLE: ").append(impossibilityReason).append("\n\n");
+            summary.append("FLIGHT IMPOSSIBLE: ").append(plan.getImpossibilityReason()).append("\n\n");
         } else {
             // Add flight statistics
-            summary.append(String.format("Total Distance: %.2f nautical miles%n", totalDistance));
-            summary.append(String.format("Total Flight Time: %.2f hours%n", totalFlightTime));
-            summary.append(String.format("Average Heading: %.1f°%n", averageHeading));
-            summary.append(String.format("Total Fuel Needed: %.2f liters%n", fuelNeeded));
+            summary.append(String.format("Total Distance: %.2f nautical miles%n", plan.getTotalDistance()));
+            summary.append(String.format("Total Flight Time: %.2f hours%n", plan.getTotalFlightTime()));
+            summary.append(String.format("Average Heading: %.1f°%n", plan.getAverageHeading()));
+            summary.append(String.format("Total Fuel Needed: %.2f liters%n", plan.getFuelNeeded()));
             summary.append(String.format("Airplane Fuel Capacity: %.2f liters%n", airplane.getFuelSize()));
 
             // Add notes about refueling if applicable
-            if (routeWithRefuel.size() > fullRoute.size()) {
+            if (plan.hasRefuelStops()) {
                 summary.append("\nNOTE: Refueling stops were automatically added to the route\n");
             }
 
             // Add fuel status warning/notification
-            if (fuelNeeded > airplane.getFuelSize()) {
+            if (plan.getFuelNeeded() > airplane.getFuelSize()) {
                 summary.append("WARNING: This flight requires refueling stops (already added to route)\n");
             } else {
                 summary.append("Flight can be completed without refueling.\n");
-                summary.append(String.format("Remaining fuel after flight: %.2f liters%n", airplane.getFuelSize() - fuelNeeded));
+                summary.append(String.format("Remaining fuel after flight: %.2f liters%n", airplane.getFuelSize() - plan.getFuelNeeded()));
             }
         }
         summary.append("===============================");
@@ -432,7 +418,7 @@ class FlightPlannerGUI {
         // Handle user choice
         if (choice == 0 && flightPossible) {
             // User chose to view on map
-            showFlightPlanOnOSM(routeWithRefuel);
+            showFlightPlanOnOSM(plan.getRoute());
             // Show post-plan options again
             showPostPlanOptions(airports, airplanes);
         } else if ((choice == 1 && flightPossible) || (choice == 0 && !flightPossible)) {
@@ -442,6 +428,179 @@ class FlightPlannerGUI {
         // Otherwise, return to main menu
     }
 
+    // Method to pick a departure, any intermediate stops and a destination (returns null if cancelled)
+    private List<Airport> chooseRoute(AirportPicker airportPicker, String title) {
+        // Get departure airport selection from user
+        Airport departureAirport = airportPicker.pick(title, "Select departure airport (type to filter):");
+        if (departureAirport == null) return null; // User cancelled
+
+        // Create list to store the flight route (starting with departure)
+        List<Airport> route = new ArrayList<>();
+        route.add(departureAirport);
+
+        // Allow user to add intermediate stops
+        while (true) {
+            // Ask user if they want to add a stop
+            int response = JOptionPane.showConfirmDialog(null, 
+                "Would you like to add an intermediate stop?", 
+                "Add Stop", 
+                JOptionPane.YES_NO_OPTION);
+            
+            // Break if user doesn't want to add more stops
+            if (response != JOptionPane.YES_OPTION) {
+                break;
+            }
+            
+            // Loop for adding a single stop
+            while (true) {
+                // Get stop selection from user
+                Airport stopAirport = airportPicker.pick(title, "Select intermediate airport (type to filter):");
+                if (stopAirport == null) break; // User cancelled
+                
+                // Check if same as last airport (not allowed)
+                if (!route.isEmpty() && stopAirport.getKey() == route.get(route.size()-1).getKey()) {
+                    JOptionPane.showMessageDialog(null, 
+                        "Error: You cannot add the same airport consecutively!\n" +
+                        "Current last stop: " + route.get(route.size()-1).getName() + 
+                        " (" + route.get(route.size()-1).getIcao() + ")",
+                        "Invalid Stop", 
+                        JOptionPane.ERROR_MESSAGE);
+                    continue;
+                }
+                
+                // Add valid stop to route
+                route.add(stopAirport);
+                break;
+            }
+        }
+
+        // Get destination airport selection from user
+        while (true) {
+            // Get destination selection
+            Airport destinationAirport = airportPicker.pick(title, "Select destination airport (type to filter):");
+            if (destinationAirport == null) return null; // User cancelled
+            
+            // Check if destination is same as last stop (not allowed)
+            if (!route.isEmpty() && destinationAirport.getKey() == route.get(route.size()-1).getKey()) {
+                JOptionPane.showMessageDialog(null, 
+                    "Error: Destination cannot be the same as your last stop!\n" +
+                    "Current last stop: " + route.get(route.size()-1).getName() + 
+                    " (" + route.get(route.size()-1).getIcao() + ")",
+                    "Invalid Destination", 
+                    JOptionPane.ERROR_MESSAGE);
+                continue;
+            }
+            
+            // Add valid destination to route
+            route.add(destinationAirport);
+            break;
+        }
+        return route;
+    }
+
+    // Method to compute a plan on a background thread, showing progress with a cancel button
+    private FlightPlan computePlan(Map<Integer, Airport> airports, Map<Integer, Airplane> airplanes,
+                                   List<Integer> routeKeys, int airplaneKey) {
+        int legCount = routeKeys.size() - 1;
+        JLabel status = new JLabel("Preparing airport index...");
+        JLabel found = new JLabel("Refuel stops found: 0");
+        JProgressBar progressBar = new JProgressBar(0, legCount);
+        progressBar.setStringPainted(true);
+        progressBar.setString("0 of " + legCount + " legs planned");
+        JButton cancelButton = new JButton("Cancel");
+
+        JDialog dialog = new JDialog((java.awt.Frame) null, "Computing Flight Plan", true);
+        JPanel panel = new JPanel(new java.awt.GridLayout(0, 1, 5, 5));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(status);
+        panel.add(progressBar);
+        panel.add(found);
+        JPanel buttons = new JPanel();
+        buttons.add(cancelButton);
+        panel.add(buttons);
+        dialog.setContentPane(panel);
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        dialog.setSize(420, 180);
+        dialog.setLocationRelativeTo(null);
+
+        SwingWorker<FlightPlan, PlanProgress> worker = new SwingWorker<>() {
+            @Override
+            protected FlightPlan doInBackground() {
+                FlightPlanService planner = getService(airports, airplanes);
+                return planner.plan(routeKeys, airplaneKey, new FlightPlanService.ProgressListener() {
+                    private int refuelStops;
+
+                    @Override
+                    public void legStarted(int leg, int legs, Airport from, Airport to, boolean needsRefuel) {
+                        publish(new PlanProgress(leg, refuelStops, String.format("%s leg %d of %d: %s to %s",
+                            needsRefuel ? "Searching refuel stops for" : "Planning", leg + 1, legs,
+                            from.getIcao(), to.getIcao())));
+                    }
+
+                    @Override
+                    public void legPlanned(int leg, int legs, int stops) {
+                        refuelStops = stops;
+                        publish(new PlanProgress(leg + 1, stops, String.format("Planned leg %d of %d", leg + 1, legs)));
+                    }
+                });
+            }
+
+            @Override
+            protected void process(List<PlanProgress> updates) {
+                // Only the latest update matters
+                PlanProgress latest = updates.get(updates.size() - 1);
+                status.setText(latest.status);
+                progressBar.setValue(latest.legsPlanned);
+                progressBar.setString(latest.legsPlanned + " of " + legCount + " legs planned");
+                found.setText("Refuel stops found: " + latest.refuelStops);
+            }
+
+            @Override
+            protected void done() {
+                dialog.dispose();
+            }
+        };
+        cancelButton.addActionListener(e -> worker.cancel(true));
+        dialog.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                worker.cancel(true);
+            }
+        });
+        worker.execute();
+        dialog.setVisible(true); // done() runs on this thread, so it cannot fire before the dialog opens
+
+        if (worker.isCancelled()) {
+            JOptionPane.showMessageDialog(null, "Flight planning cancelled.", "Cancelled", JOptionPane.INFORMATION_MESSAGE);
+            return null;
+        }
+        try {
+            return worker.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            String message = cause instanceof IllegalArgumentException ? cause.getMessage()
+                : "Error computing flight plan: " + cause;
+            JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // Progress snapshot published from the planning thread to the dialog
+    private static final class PlanProgress {
+        final int legsPlanned;
+        final int refuelStops;
+        final String status;
+
+        PlanProgress(int legsPlanned, int refuelStops, String status) {
+            this.legsPlanned = legsPlanned;
+            this.refuelStops = refuelStops;
+            this.status = status;
+        }
+    }
+
     // Method to show options after flight plan is completed
     private void showPostPlanOptions(Map<Integer, Airport> airports, Map<Integer, Airplane> airplanes) {
         // Options for after viewing map
@@ -561,68 +720,207 @@ private String escapeJavaScript(String input) {
                 .replace("\r", "\\r")
                 .replace("\t", "\\t");
 }
-    // Method to find suitable refueling stops between two airports
-    private List<Airport> findRefuelStops(Airport from, Airport to, Map<Integer, Airport> airports, 
-                                        Airplane airplane, double maxLegDistance) {
-        List<Airport> refuelStops = new ArrayList<>();
-        Airport current = from;
-        double remainingDistance = calculateDistance(from, to);
-        
-        // Keep adding stops until remaining distance is within range
-        while (remainingDistance > maxLegDistance) {
-            Airport bestStop = null;
-            double bestDistance = 0;
-            
-            // Search all airports for potential refuel stops
-            for (Airport potentialStop : airports.values()) {
-                // Skip current and destination airports
-                if (potentialStop.getKey() == current.getKey() || potentialStop.getKey() == to.getKey()) {
-                    continue;
-                }
-                
-                // Check fuel compatibility
-                if (!isFuelCompatible(airplane, potentialStop)) {
-                    continue;
-                }
-                
-                // Calculate distances
-                double distToStop = calculateDistance(current, potentialStop);
-                double distFromStopToDest = calculateDistance(potentialStop, to);
-                
-                // Check if this stop is within range and makes progress
-                if (distToStop <= maxLegDistance && distFromStopToDest < remainingDistance) {
-                    // Select the stop that's farthest along the route
-                    if (bestStop == null || distToStop > bestDistance) {
-                        bestStop = potentialStop;
-                        bestDistance = distToStop;
-                    }
-                }
+
+    // Method to list every airplane that can fly a chosen city pair without refuelling
+    public void showNonstopAirplanes(Map<Integer, Airport> airports, Map<Integer, Airplane> airplanes) {
+        if (airports.isEmpty() || airplanes.isEmpty()) {
+            String message = "Error: Airports or Airplanes database is empty!\n" +
+                           "Airports available: " + airports.size() + "\n" +
+                           "Airplanes available: " + airplanes.size();
+            JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        AirportPicker airportPicker = new AirportPicker(airports.values());
+        Airport from = airportPicker.pick("Nonstop Aircraft", "Select departure airport (type to filter):");
+        if (from == null) return; // User cancelled
+        Airport to = airportPicker.pick("Nonstop Aircraft", "Select arrival airport (type to filter):");
+        if (to == null) return; // User cancelled
+
+        FlightPlanService.NonstopOptions options;
+        try {
+            options = getService(airports, airplanes).nonstop(from.getKey(), to.getKey());
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        // Build the list of qualifying airplanes, smallest sufficient range first
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s (%s) to %s (%s): %.1f nm%n", from.getName(), from.getIcao(),
+                                to.getName(), to.getIcao(), options.getDistance()));
+        if (options.getAirplanes().isEmpty()) {
+            sb.append("\nNo airplane can fly this leg without refuelling\n" +
+                      "(or none uses a fuel sold at the departure airport).");
+        } else {
+            sb.append(options.getAirplanes().size()).append(" airplanes can fly this leg nonstop:\n\n");
+            for (Airplane airplane : options.getAirplanes()) {
+                sb.append(String.format("Key: %d | %s %s | %s | Range: %.0f nm | Time: %.2f hours%n",
+                                        airplane.getKey(), airplane.getMake(), airplane.getModel(),
+                                        airplane.getAircraftType(), FleetIndex.range(airplane),
+                                        options.flightTime(airplane)));
             }
-            
-            // If no suitable stop found, return empty list
-            if (bestStop == null) {
-                return Collections.emptyList();
+        }
+        JTextArea textArea = new JTextArea(sb.toString());
+        textArea.setEditable(false);
+        textArea.setCaretPosition(0);
+        JScrollPane scrollPane = new JScrollPane(textArea);
+        scrollPane.setPreferredSize(new java.awt.Dimension(650, 350));
+        JOptionPane.showMessageDialog(null, scrollPane, "Nonstop Aircraft", JOptionPane.INFORMATION_MESSAGE);
+    }
+
+    // Method to plan one route for every airplane and show them ranked by time, fuel or stops
+    public void compareFleet(Map<Integer, Airport> airports, Map<Integer, Airplane> airplanes) {
+        if (airports.isEmpty() || airplanes.isEmpty()) {
+            String message = "Error: Airports or Airplanes database is empty!\n" +
+                           "Airports available: " + airports.size() + "\n" +
+                           "Airplanes available: " + airplanes.size();
+            JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        List<Airport> route = chooseRoute(new AirportPicker(airports.values()), "Compare Fleet");
+        if (route == null) return; // User cancelled
+        List<Integer> routeKeys = new ArrayList<>();
+        for (Airport stop : route) {
+            routeKeys.add(stop.getKey());
+        }
+        FleetComparison.Result result = computeComparison(airports, airplanes, routeKeys);
+        if (result == null) return; // Cancelled or failed (already reported)
+
+        // Show the ranking, letting the user re-rank until they close it
+        String[] options = {"By Time", "By Fuel", "By Stops", "Close"};
+        FleetComparison.Ranking ranking = FleetComparison.Ranking.TIME;
+        while (true) {
+            JTextArea textArea = new JTextArea(formatComparison(route, result, ranking));
+            textArea.setEditable(false);
+            textArea.setCaretPosition(0);
+            textArea.setFont(new java.awt.Font(java.awt.Font.MONOSPACED, java.awt.Font.PLAIN, 12));
+            JScrollPane scrollPane = new JScrollPane(textArea);
+            scrollPane.setPreferredSize(new java.awt.Dimension(750, 400));
+            int choice = JOptionPane.showOptionDialog(null, scrollPane, "Compare Fleet",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, options[3]);
+            if (choice < 0 || choice == 3) {
+                return;
             }
-            
-            // Add the best stop found
-            refuelStops.add(bestStop);
-            remainingDistance = calculateDistance(bestStop, to);
-            current = bestStop;
+            ranking = FleetComparison.Ranking.values()[choice];
         }
-        
-        return refuelStops;
     }
 
-    // Method to check if airplane fuel type is compatible with airport fuel type
-    private boolean isFuelCompatible(Airplane airplane, Airport airport) {
-        int planeFuelType = airplane.getFuelType();
-        int airportFuelType = airport.getFuelType();
-        
-        // Fuel type 3 means both types available
-        return (planeFuelType == airportFuelType) || 
-               (airportFuelType == 3) ||
-               (planeFuelType == 1 && airportFuelType == 3) ||
-               (planeFuelType == 2 && airportFuelType == 3);
+    // Method to run a fleet comparison on a background thread, showing progress with a cancel button
+    private FleetComparison.Result computeComparison(Map<Integer, Airport> airports, Map<Integer, Airplane> airplanes,
+                                                     List<Integer> routeKeys) {
+        int fleetSize = airplanes.size();
+        JProgressBar progressBar = new JProgressBar(0, fleetSize);
+        progressBar.setStringPainted(true);
+        progressBar.setString("0 of " + fleetSize + " airplanes planned");
+        JButton cancelButton = new JButton("Cancel");
+
+        JDialog dialog = new JDialog((java.awt.Frame) null, "Comparing Fleet", true);
+        JPanel panel = new JPanel(new java.awt.GridLayout(0, 1, 5, 5));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(new JLabel("Planning the route for every airplane..."));
+        panel.add(progressBar);
+        JPanel buttons = new JPanel();
+        buttons.add(cancelButton);
+        panel.add(buttons);
+        dialog.setContentPane(panel);
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        dialog.setSize(420, 150);
+        dialog.setLocationRelativeTo(null);
+
+        SwingWorker<FleetComparison.Result, Integer> worker = new SwingWorker<>() {
+            @Override
+            protected FleetComparison.Result doInBackground() {
+                FleetComparison comparison = new FleetComparison(getService(airports, airplanes));
+                return comparison.compare(routeKeys, (done, total) -> publish(done));
+            }
+
+            @Override
+            protected void process(List<Integer> updates) {
+                // Only the latest count matters
+                int done = updates.get(updates.size() - 1);
+                progressBar.setValue(done);
+                progressBar.setString(done + " of " + fleetSize + " airplanes planned");
+            }
+
+            @Override
+            protected void done() {
+                dialog.dispose();
+            }
+        };
+        cancelButton.addActionListener(e -> worker.cancel(true));
+        dialog.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                worker.cancel(true);
+            }
+        });
+        worker.execute();
+        dialog.setVisible(true); // done() runs on this thread, so it cannot fire before the dialog opens
+
+        if (worker.isCancelled()) {
+            JOptionPane.showMessageDialog(null, "Fleet comparison cancelled.", "Cancelled", JOptionPane.INFORMATION_MESSAGE);
+            return null;
+        }
+        try {
+            return worker.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            String message = cause instanceof IllegalArgumentException ? cause.getMessage()
+                : "Error comparing fleet: " + cause;
+            JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // Method to format a fleet comparison as a ranked table, followed by the airplanes that cannot fly it
+    private String formatComparison(List<Airport> route, FleetComparison.Result result,
+                                    FleetComparison.Ranking ranking) {
+        StringBuilder sb = new StringBuilder("Route: ");
+        for (int i = 0; i < route.size(); i++) {
+            sb.append(i == 0 ? "" : " -> ").append(route.get(i).getIcao());
+        }
+        List<FlightPlan> ranked = result.getRanked(ranking);
+        sb.append(String.format("%n%d of %d airplanes can fly it (ranked by %s, computed in %d ms)%n%n",
+                                ranked.size(), result.getPlans().size(), ranking.name().toLowerCase(),
+                                result.getElapsedMillis()));
+        if (!ranked.isEmpty()) {
+            sb.append(String.format("%-5s %-6s %-30s %10s %12s %6s %11s%n",
+                                    "Rank", "Key", "Airplane", "Time (h)", "Fuel (l)", "Stops", "Dist (nm)"));
+        }
+        int rank = 0;
+        for (FlightPlan plan : ranked) {
+            Airplane airplane = plan.getAirplane();
+            String name = airplane.getMake() + " " + airplane.getModel();
+            sb.append(String.format("%-5d %-6d %-30.30s %10.2f %12.2f %6d %11.1f%n", ++rank, airplane.getKey(),
+                                    name, plan.getTotalFlightTime(), plan.getFuelNeeded(),
+                                    plan.getRefuelStops().size(), plan.getTotalDistance()));
+        }
+        List<FlightPlan> impossible = result.getImpossible();
+        if (!impossible.isEmpty()) {
+            sb.append("\nCannot fly this route:\n");
+            for (FlightPlan plan : impossible) {
+                Airplane airplane = plan.getAirplane();
+                sb.append(String.format("Key: %d | %s %s | %s%n", airplane.getKey(), airplane.getMake(),
+                                        airplane.getModel(), plan.getImpossibilityReason()));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Method to get the planning service for the loaded databases, creating it on first use
+    private FlightPlanService getService(Map<Integer, Airport> airports, Map<Integer, Airplane> airplanes) {
+        if (service == null || plannedAirports != airports || plannedAirplanes != airplanes ||
+            service.getAirports().size() != airports.size() || service.getAirplanes().size() != airplanes.size()) {
+            service = new FlightPlanService(airports, airplanes);
+            plannedAirports = airports;
+            plannedAirplanes = airplanes;
+        }
+        return service;
     }
 
     // Helper method to get selection input from user with scrollable display
@@ -648,50 +946,6 @@ private String escapeJavaScript(String input) {
             return null;
         }
     }
-
-    // Method to calculate distance between two airports using Haversine formula
-    private double calculateDistance(Airport a1, Airport a2) {
-        // Convert coordinates to radians
-        double lat1 = Math.toRadians(a1.getLatitude());
-        double lon1 = Math.toRadians(a1.getLongitude());
-        double lat2 = Math.toRadians(a2.getLatitude());
-        double lon2 = Math.toRadians(a2.getLongitude());
-
-        // Calculate differences
-        double dLat = lat2 - lat1;
-        double dLon = lon2 - lon1;
-
-        // Haversine formula
-        double a = Math.pow(Math.sin(dLat / 2), 2) + 
-                   Math.cos(lat1) * Math.cos(lat2) * 
-                   Math.pow(Math.sin(dLon / 2), 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-
-        return 3440.1 * c; // Earth radius in nautical miles
-    }
-
-    // Method to calculate initial heading between two airports
-    private double calculateHeading(Airport from, Airport to) {
-        // Convert coordinates to radians
-        double lat1 = Math.toRadians(from.getLatitude());
-        double lon1 = Math.toRadians(from.getLongitude());
-        double lat2 = Math.toRadians(to.getLatitude());
-        double lon2 = Math.toRadians(to.getLongitude());
-
-        // Calculate longitude difference
-        double dLon = lon2 - lon1;
-
-        // Calculate heading components
-        double y = Math.sin(dLon) * Math.cos(lat2);
-        double x = Math.cos(lat1) * Math.sin(lat2) - 
-                   Math.sin(lat1) * Math.cos(lat2) * Math.cos(dLon);
-
-        // Calculate and normalize heading
-        double heading = Math.toDegrees(Math.atan2(y, x));
-        heading = (heading + 360) % 360; // Normalize to 0-360 degrees
-
-        return heading;
-    }
 }
 
 // Class representing an Airport with serialization support
@@ -705,6 +959,7 @@ class Airport implements Serializable {
     private final int key;       // Unique identifier
     private String radioType;    // Type of radio available
     private double radioFrequency; // Radio frequency
+    private transient GeoPoint geo; // Cached trigonometry for distance and heading math
 
     // Constructor
     public Airport(String name, String icao, double latitude, double longitude, 
@@ -717,6 +972,13 @@ class Airport implements Serializable {
         this.key = key;
         this.radioType = radioType;
         this.radioFrequency = radioFrequency;
+        this.geo = new GeoPoint(latitude, longitude);
+    }
+
+    // Rebuilds the cached trigonometry when loaded from a file
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.geo = new GeoPoint(latitude, longitude);
     }
 
     // Getters for all fields
@@ -728,6 +990,7 @@ class Airport implements Serializable {
     public int getKey() { return key; }
     public String getRadioType() { return radioType; }
     public double getRadioFrequency() { return radioFrequency; }
+    public GeoPoint getGeo() { return geo; }
 }
 
 // Class representing an Airplane with serialization support
@@ -0,0 +1,101 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index from a normalized text value to the record keys that hold it.
+ * Callers normalize values themselves (e.g. lower-case them) so lookups are
+ * exact hash probes. Values are normally unique, so each maps to one key; the
+ * rare duplicates (e.g. from old data files) are kept in a side table in
+ * insertion order, and lookup returns the earliest one still present.
+ * Not thread-safe: an owner shared between threads must guard every call with
+ * its own lock (AirportDatabase uses its monitor), otherwise the index must
+ * stay confined to one thread (UserDatabase is only used from the user menu).
+ */
+public final class NormalizedKeyIndex {
+    private final Map<String, Integer> first;
+    private final Map<String, List<Integer>> duplicates = new HashMap<>();
+
+    /**
+     * Creates an index sized for the expected number of values
+     * @param expectedSize Number of values expected
+     */
+    public NormalizedKeyIndex(int expectedSize) {
+        this.first = new HashMap<>(Math.max(16, expectedSize * 4 / 3 + 1));
+    }
+
+    /**
+     * Records that a key holds a value
+     * @param value The normalized value
+     * @param key The record key
+     */
+    public void add(String value, int key) {
+        Integer existing = first.putIfAbsent(value, key);
+        if (existing != null && existing != key) {
+            duplicates.computeIfAbsent(value, v -> new ArrayList<>(2)).add(key);
+        }
+    }
+
+    /**
+     * Removes the entry for a key and value, if present
+     * @param value The normalized value the key was added with
+     * @param key The record key
+     */
+    public void remove(String value, int key) {
+        Integer existing = first.get(value);
+        if (existing == null) {
+            return;
+        }
+        List<Integer> others = duplicates.get(value);
+        if (existing == key) {
+            if (others == null) {
+                first.remove(value);
+            } else {
+                first.put(value, others.remove(0));
+                if (others.isEmpty()) {
+                    duplicates.remove(value);
+                }
+            }
+        } else if (others != null) {
+            others.remove(Integer.valueOf(key));
+            if (others.isEmpty()) {
+                duplicates.remove(value);
+            }
+        }
+    }
+
+    /**
+     * Finds a key holding a value
+     * @param value The normalized value
+     * @return The earliest key added with the value, or null if none
+     */
+    public Integer get(String value) {
+        return first.get(value);
+    }
+
+    /**
+     * Checks whether any key holds a value
+     * @param value The normalized value
+     * @return true if the value is indexed
+     */
+    public boolean contains(String value) {
+        return first.containsKey(value);
+    }
+
+    /**
+     * Removes every entry
+     */
+    public void clear() {
+        first.clear();
+        duplicates.clear();
+    }
+
+    /**
+     * Gets the number of distinct values
+     * @return Distinct values indexed
+     */
+    public int size() {
+        return first.size();
+    }
+}
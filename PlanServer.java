@@ -0,0 +1,397 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedded HTTP server answering plan, airport search and airplane lookups
+ * as JSON from the stores loaded in memory.
+ * Endpoints:
+ *   POST /plan               {"airplane": 1, "route": [1, 2, 3]}
+ *   GET  /plan?airplane=1&route=1,2,3
+ *   GET  /nonstop?from=1&to=2    airplanes that can fly the leg without refuelling
+ *   GET  /airports/search?q=text[&limit=n]
+ *   GET  /airports/{key}
+ *   GET  /airplanes and /airplanes/{key}
+ * Each request runs on its own virtual thread where the JVM supports them,
+ * otherwise on a pool of platform threads. At most maxConcurrent requests are
+ * handled at once; further requests get 503 straight away rather than
+ * queueing without bound. Unexpected failures are logged to standard error
+ * and reported to the client as a generic 500.
+ */
+public class PlanServer {
+    // Search results returned when the request gives no limit, and the most it may ask for
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 200;
+    // Largest request body accepted, in bytes
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final FlightPlanService service;
+    private final AirportSearchIndex searchIndex;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+    private final HttpServer server;
+
+    /**
+     * Creates a server bound to a port; call start to accept requests
+     * @param service The planning service holding the airports and airplanes
+     * @param searchIndex Type-ahead index over the same airports
+     * @param port TCP port to listen on, or 0 for any free port
+     * @param maxConcurrent Most requests handled at the same time
+     * @throws IOException if the port cannot be bound
+     */
+    public PlanServer(FlightPlanService service, AirportSearchIndex searchIndex, int port, int maxConcurrent)
+            throws IOException {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        }
+        this.service = service;
+        this.searchIndex = searchIndex;
+        this.permits = new Semaphore(maxConcurrent);
+        this.executor = BackgroundExecutors.newTaskExecutor("plan-server", maxConcurrent);
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext("/plan", limited(this::handlePlan));
+        server.createContext("/nonstop", limited(this::handleNonstop));
+        server.createContext("/airports/", limited(this::handleAirports));
+        server.createContext("/airplanes", limited(this::handleAirplanes));
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits briefly for those in progress
+     * @param delaySeconds Longest time to wait for requests in progress
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the port the server is listening on
+     * @return The bound port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Handler body that produces a JSON value, or throws to report an error
+    private interface JsonHandler {
+        Object handle(HttpExchange exchange) throws IOException;
+    }
+
+    // Wraps a handler with the concurrency limit and JSON error reporting
+    private HttpHandler limited(JsonHandler handler) {
+        return exchange -> {
+            try {
+                if (!permits.tryAcquire()) {
+                    send(exchange, 503, error("Server busy, try again"));
+                    return;
+                }
+                try {
+                    send(exchange, 200, handler.handle(exchange));
+                } catch (IllegalArgumentException e) {
+                    send(exchange, 400, error(e.getMessage()));
+                } catch (NotFound e) {
+                    send(exchange, 404, error(e.getMessage()));
+                } catch (MethodNotAllowed e) {
+                    send(exchange, 405, error(e.getMessage()));
+                } catch (RuntimeException e) {
+                    // Details stay in the server log; clients only learn that the request failed
+                    System.err.println("Plan server failed on " + exchange.getRequestMethod() + " "
+                                       + exchange.getRequestURI());
+                    e.printStackTrace();
+                    send(exchange, 500, error("Internal server error"));
+                } finally {
+                    permits.release();
+                }
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    // Method to plan a route given in a JSON body (POST) or query string (GET)
+    private Object handlePlan(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals("/plan")) {
+            throw new NotFound("No such endpoint: " + exchange.getRequestURI().getPath());
+        }
+        int airplaneKey;
+        List<Integer> route = new ArrayList<>();
+        String method = exchange.getRequestMethod();
+        if (method.equals("POST")) {
+            Object body = Json.parse(readBody(exchange));
+            if (!(body instanceof Map)) {
+                throw new IllegalArgumentException("Request body must be a JSON object");
+            }
+            Map<?, ?> request = (Map<?, ?>) body;
+            airplaneKey = toKey(request.get("airplane"), "airplane");
+            Object keys = request.get("route");
+            if (!(keys instanceof List)) {
+                throw new IllegalArgumentException("\"route\" must be an array of airport keys");
+            }
+            for (Object key : (List<?>) keys) {
+                route.add(toKey(key, "route"));
+            }
+        } else if (method.equals("GET")) {
+            Map<String, String> query = query(exchange);
+            airplaneKey = toKey(query.get("airplane"), "airplane");
+            String keys = query.get("route");
+            if (keys == null || keys.isEmpty()) {
+                throw new IllegalArgumentException("Missing parameter: route");
+            }
+            for (String key : keys.split(",")) {
+                route.add(toKey(key.trim(), "route"));
+            }
+        } else {
+            throw new MethodNotAllowed("Use GET or POST for /plan");
+        }
+        return planJson(service.plan(route, airplaneKey));
+    }
+
+    // Method to list the airplanes able to fly one leg without a refuel stop
+    private Object handleNonstop(HttpExchange exchange) {
+        requireGet(exchange);
+        if (!exchange.getRequestURI().getPath().equals("/nonstop")) {
+            throw new NotFound("No such endpoint: " + exchange.getRequestURI().getPath());
+        }
+        Map<String, String> query = query(exchange);
+        FlightPlanService.NonstopOptions options = service.nonstop(toKey(query.get("from"), "from"),
+                                                                   toKey(query.get("to"), "to"));
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("from", options.getFrom().getKey());
+        json.put("to", options.getTo().getKey());
+        json.put("distance", options.getDistance());
+        List<Object> airplanes = new ArrayList<>();
+        for (Airplane airplane : options.getAirplanes()) {
+            Map<String, Object> airplaneJson = airplaneJson(airplane);
+            airplaneJson.put("range", FleetIndex.range(airplane));
+            airplaneJson.put("flightTime", options.flightTime(airplane));
+            airplanes.add(airplaneJson);
+        }
+        json.put("airplanes", airplanes);
+        return json;
+    }
+
+    // Method to search airports, or look one up by key
+    private Object handleAirports(HttpExchange exchange) throws IOException {
+        requireGet(exchange);
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/airports/search")) {
+            Map<String, String> query = query(exchange);
+            String text = query.getOrDefault("q", "");
+            int limit = query.containsKey("limit") ? toKey(query.get("limit"), "limit") : DEFAULT_SEARCH_LIMIT;
+            List<Object> results = new ArrayList<>();
+            for (Airport airport : searchIndex.search(text, Math.min(limit, MAX_SEARCH_LIMIT))) {
+                results.add(airportJson(airport));
+            }
+            return results;
+        }
+        int key = toKey(path.substring("/airports/".length()), "airport key");
+        Airport airport = service.getAirports().get(key);
+        if (airport == null) {
+            throw new NotFound("No airport with key " + key);
+        }
+        return airportJson(airport);
+    }
+
+    // Method to list airplanes, or look one up by key
+    private Object handleAirplanes(HttpExchange exchange) throws IOException {
+        requireGet(exchange);
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/airplanes") || path.equals("/airplanes/")) {
+            // Listed in key order so responses are stable
+            List<Object> results = new ArrayList<>();
+            for (Airplane airplane : new TreeMap<>(service.getAirplanes()).values()) {
+                results.add(airplaneJson(airplane));
+            }
+            return results;
+        }
+        if (!path.startsWith("/airplanes/")) {
+            throw new NotFound("No such endpoint: " + path);
+        }
+        int key = toKey(path.substring("/airplanes/".length()), "airplane key");
+        Airplane airplane = service.getAirplanes().get(key);
+        if (airplane == null) {
+            throw new NotFound("No airplane with key " + key);
+        }
+        return airplaneJson(airplane);
+    }
+
+    private static Map<String, Object> planJson(FlightPlan plan) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("possible", plan.isPossible());
+        if (!plan.isPossible()) {
+            json.put("reason", plan.getImpossibilityReason());
+        }
+        json.put("airplane", plan.getAirplane().getKey());
+        json.put("totalDistance", plan.getTotalDistance());
+        json.put("totalFlightTime", plan.getTotalFlightTime());
+        json.put("averageHeading", plan.getAverageHeading());
+        json.put("fuelNeeded", plan.getFuelNeeded());
+        List<Object> route = new ArrayList<>();
+        for (Airport airport : plan.getRoute()) {
+            route.add(airportJson(airport));
+        }
+        json.put("route", route);
+        List<Object> refuelStops = new ArrayList<>();
+        for (Airport airport : plan.getRefuelStops()) {
+            refuelStops.add(airport.getKey());
+        }
+        json.put("refuelStops", refuelStops);
+        List<Object> legs = new ArrayList<>();
+        for (FlightPlan.Leg leg : plan.getLegs()) {
+            Map<String, Object> legJson = new LinkedHashMap<>();
+            legJson.put("from", leg.getFrom().getKey());
+            legJson.put("to", leg.getTo().getKey());
+            legJson.put("distance", leg.getDistance());
+            legJson.put("heading", leg.getHeading());
+            legJson.put("flightTime", leg.getFlightTime());
+            legJson.put("refuelLeg", leg.isRefuelLeg());
+            legs.add(legJson);
+        }
+        json.put("legs", legs);
+        return json;
+    }
+
+    private static Map<String, Object> airportJson(Airport airport) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("key", airport.getKey());
+        json.put("icao", airport.getIcao());
+        json.put("name", airport.getName());
+        json.put("latitude", airport.getLatitude());
+        json.put("longitude", airport.getLongitude());
+        json.put("fuelType", airport.getFuelType());
+        json.put("radioType", airport.getRadioType());
+        json.put("radioFrequency", airport.getRadioFrequency());
+        return json;
+    }
+
+    private static Map<String, Object> airplaneJson(Airplane airplane) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("key", airplane.getKey());
+        json.put("make", airplane.getMake());
+        json.put("model", airplane.getModel());
+        json.put("aircraftType", airplane.getAircraftType());
+        json.put("fuelSize", airplane.getFuelSize());
+        json.put("fuelType", airplane.getFuelType());
+        json.put("fuelBurn", airplane.getFuelBurn());
+        json.put("airspeed", airplane.getAirspeed());
+        return json;
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("error", message);
+        return json;
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body is larger than " + MAX_BODY_BYTES + " bytes");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(decode(name), decode(value));
+        }
+        return params;
+    }
+
+    private static String decode(String s) {
+        try {
+            return URLDecoder.decode(s, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Badly encoded query parameter: " + s);
+        }
+    }
+
+    private static void requireGet(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw new MethodNotAllowed("Use GET for " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    // Reads a whole-number key from a JSON number or query string
+    private static int toKey(Object value, String name) {
+        if (value instanceof Double) {
+            double d = (Double) value;
+            if (d != Math.rint(d) || Math.abs(d) > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("\"" + name + "\" must be a whole number");
+            }
+            return (int) d;
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt((String) value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("\"" + name + "\" must be a whole number, got: " + value);
+            }
+        }
+        throw new IllegalArgumentException("Missing or invalid " + name);
+    }
+
+    private static final class NotFound extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        NotFound(String message) {
+            super(message);
+        }
+    }
+
+    private static final class MethodNotAllowed extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        MethodNotAllowed(String message) {
+            super(message);
+        }
+    }
+}
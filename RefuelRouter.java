@@ -0,0 +1,322 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Predicate;
+
+/**
+ * A* search for refueling stops over the implicit "reachable on one tank" graph.
+ * Two airports are connected when the great-circle distance between them is
+ * within the airplane's range. The great-circle distance to the destination is
+ * used as the heuristic, so only airports that can lie on an optimal route are
+ * expanded, and neighbors are pulled from the spatial index on demand. The
+ * endpoints need not be in the index: the destination is reached by a direct
+ * leg, so the index can be limited to airports that sell the airplane's fuel.
+ * Each search first only considers stops in the corridor along the great circle
+ * to the destination. The corridor route is only a candidate: a second search
+ * over every airport in range, pruned to paths whose admissible lower bound
+ * beats the corridor route's stop count (or distance), either proves it
+ * optimal or replaces it. For the fewest-stops objective the proof is usually
+ * immediate, because the corridor route already has the fewest legs the
+ * direct distance allows; among routes with equally few stops the corridor
+ * route is kept.
+ * The heuristic is computed on demand; once a search has touched enough of the
+ * airports that a vectorized DistanceKernel sweep is cheaper, the remaining
+ * distances are filled in for every airport in one pass. Search state lives
+ * in per-row arrays indexed by AirportStore row. Finished searches return
+ * their state to a small shared pool rather than a thread-local, so
+ * short-lived threads (e.g. one virtual thread per request) reuse it too;
+ * states beyond the pool's capacity are left to the garbage collector. A
+ * search checks the calling thread's interrupt flag as it goes, so a runaway
+ * search can be cancelled by interrupting its thread.
+ */
+public class RefuelRouter {
+    /**
+     * What the router minimizes
+     */
+    public enum Objective {
+        FEWEST_STOPS,       // Minimum number of refuel stops, then most progress
+        SHORTEST_DISTANCE   // Minimum total distance flown
+    }
+
+    // Row marker for the destination, which is reached directly rather than through the index
+    private static final int GOAL = -2;
+    // Half-width of the first-pass search corridor, as a fraction of the airplane's range
+    private static final double CORRIDOR_WIDTH = 0.25;
+    // Airports expanded between checks for cancellation
+    private static final int INTERRUPT_CHECK_INTERVAL = 256;
+    // Idle search states kept for reuse; each holds several store-sized arrays
+    private static final int MAX_IDLE_STATES = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final AirportSpatialIndex index;
+    private final AirportStore store;
+    private final DistanceKernel kernel;
+    private final Objective objective;
+    private final ArrayBlockingQueue<SearchState> idleStates = new ArrayBlockingQueue<>(MAX_IDLE_STATES);
+
+    /**
+     * Creates a router over the given spatial index
+     * @param index Spatial index of all candidate airports
+     * @param objective What the search should minimize
+     */
+    public RefuelRouter(AirportSpatialIndex index, Objective objective) {
+        this(index, objective, DistanceKernel.getInstance());
+    }
+
+    /**
+     * Creates a router over the given spatial index using a specific distance kernel
+     * @param index Spatial index of all candidate airports
+     * @param objective What the search should minimize
+     * @param kernel Kernel used to compute the heuristic for every airport
+     */
+    public RefuelRouter(AirportSpatialIndex index, Objective objective, DistanceKernel kernel) {
+        this.index = index;
+        this.store = index.getStore();
+        this.kernel = kernel;
+        this.objective = objective;
+    }
+
+    /**
+     * Finds the refueling stops needed to fly between two airports
+     * @param from The departure airport
+     * @param to The arrival airport
+     * @param maxLegDistance Maximum distance the airplane can fly on one tank (nm)
+     * @param canRefuel Returns true if an airport can be used as a refuel stop
+     * @return Ordered list of intermediate stops, or an empty list if no route exists
+     * @throws CancellationException if the calling thread is interrupted during the search
+     */
+    public List<Airport> findStops(Airport from, Airport to, double maxLegDistance,
+                                   Predicate<Airport> canRefuel) {
+        // Most routes stay close to the great circle, so search the corridor first
+        Node corridorGoal = search(from, to, maxLegDistance, canRefuel, maxLegDistance * CORRIDOR_WIDTH, null);
+        // Then search everywhere, but only for routes that could beat the corridor route
+        Node goal = search(from, to, maxLegDistance, canRefuel, Double.POSITIVE_INFINITY, corridorGoal);
+        if (goal == null) {
+            goal = corridorGoal;
+        }
+        return goal != null ? stopsOf(goal) : Collections.emptyList();
+    }
+
+    // A* over candidates within maxCrossTrack of each node's great circle to the destination,
+    // skipping paths that cannot improve on bound (if given); returns the destination node,
+    // or null if no such route exists through those candidates
+    private Node search(Airport from, Airport to, double maxLegDistance,
+                        Predicate<Airport> canRefuel, double maxCrossTrack, Node bound) {
+        // Either endpoint may be missing from the index (e.g. it sells the wrong fuel)
+        int fromRow = store.indexOf(from.getKey());
+        int toRow = store.indexOf(to.getKey());
+        GeoPoint target = to.getGeo();
+        Node start = new Node(fromRow, null, 0, 0.0, GreatCircle.distance(from.getGeo(), target));
+        if (!mayImprove(start, bound, maxLegDistance)) {
+            return null; // The bound already meets the lower bound for the whole route
+        }
+
+        Comparator<Node> order = objective == Objective.FEWEST_STOPS
+            ? Comparator.<Node>comparingInt(n -> n.hops + minimumLegs(n.remaining, maxLegDistance))
+                        .thenComparingDouble(n -> n.remaining)
+            : Comparator.<Node>comparingDouble(n -> n.distance + n.remaining)
+                        .thenComparingDouble(n -> n.remaining);
+
+        SearchState pooled = idleStates.poll();
+        SearchState state = pooled != null ? pooled : new SearchState(store.size());
+        try {
+            PriorityQueue<Node> open = new PriorityQueue<>(order);
+            open.add(start);
+            if (fromRow >= 0) {
+                state.record(fromRow, start);
+            }
+            Node goal = null;
+            int expanded = 0;
+
+            while (!open.isEmpty()) {
+                if (++expanded % INTERRUPT_CHECK_INTERVAL == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Refuel stop search cancelled");
+                }
+                Node node = open.poll();
+                int nodeRow = node.row;
+                if (nodeRow == GOAL) {
+                    return goal;
+                }
+                if (nodeRow >= 0) {
+                    if (state.closed[nodeRow]) {
+                        continue; // Stale queue entry
+                    }
+                    state.closed[nodeRow] = true;
+                }
+                GeoPoint nodeGeo = nodeRow >= 0 ? store.airport(nodeRow).getGeo() : from.getGeo();
+
+                // The destination needs no fuel, so it is reached by a direct leg when in range
+                double direct = GreatCircle.distance(nodeGeo, target);
+                if (direct <= maxLegDistance) {
+                    Node candidate = new Node(GOAL, node, node.hops + 1, node.distance + direct, 0.0);
+                    if ((goal == null || isBetter(candidate, goal)) && mayImprove(candidate, bound, maxLegDistance)) {
+                        goal = candidate;
+                        open.add(candidate);
+                    }
+                }
+
+                // Every other hop must be a refuel stop
+                int count = Double.isInfinite(maxCrossTrack)
+                    ? index.withinRange(nodeGeo, maxLegDistance, state.neighbors)
+                    : index.corridor(nodeGeo, target, maxCrossTrack, maxLegDistance, state.neighbors);
+                for (int i = 0; i < count; i++) {
+                    int nextRow = state.neighbors[i];
+                    if (nextRow == nodeRow || nextRow == toRow || state.closed[nextRow]) {
+                        continue;
+                    }
+                    Airport next = store.airport(nextRow);
+                    if (!canRefuel.test(next)) {
+                        continue;
+                    }
+
+                    double leg = GreatCircle.distance(nodeGeo, next.getGeo());
+                    if (leg > maxLegDistance) {
+                        continue;
+                    }
+
+                    Node candidate = new Node(nextRow, node, node.hops + 1, node.distance + leg,
+                                              state.remaining(nextRow, target));
+                    if (!mayImprove(candidate, bound, maxLegDistance)) {
+                        continue;
+                    }
+                    Node known = state.best[nextRow];
+                    if (known == null || isBetter(candidate, known)) {
+                        state.record(nextRow, candidate);
+                        open.add(candidate);
+                    }
+                }
+            }
+
+            return null;
+        } finally {
+            state.reset();
+            idleStates.offer(state); // Dropped when the pool is full
+        }
+    }
+
+    // Fewest legs still required to cover the remaining distance (admissible)
+    private static int minimumLegs(double remaining, double maxLegDistance) {
+        return remaining <= 0 ? 0 : (int) Math.ceil(remaining / maxLegDistance - 1e-9);
+    }
+
+    // Checks if a path's admissible lower bound beats a complete route on the objective's main measure
+    private boolean mayImprove(Node node, Node bound, double maxLegDistance) {
+        if (bound == null) {
+            return true;
+        }
+        if (objective == Objective.FEWEST_STOPS) {
+            return node.hops + minimumLegs(node.remaining, maxLegDistance) < bound.hops;
+        }
+        return node.distance + node.remaining < bound.distance;
+    }
+
+    // Compares the cost accumulated so far for two paths to the same airport
+    private boolean isBetter(Node a, Node b) {
+        if (objective == Objective.FEWEST_STOPS) {
+            return a.hops < b.hops || (a.hops == b.hops && a.distance < b.distance);
+        }
+        return a.distance < b.distance || (a.distance == b.distance && a.hops < b.hops);
+    }
+
+    // Walks back from the destination node, dropping both route endpoints
+    private List<Airport> stopsOf(Node destination) {
+        List<Airport> stops = new ArrayList<>();
+        for (Node n = destination.previous; n != null && n.previous != null; n = n.previous) {
+            stops.add(store.airport(n.row));
+        }
+        Collections.reverse(stops);
+        return stops;
+    }
+
+    // Search state for one airport reached along a particular path
+    private static final class Node {
+        final int row;           // AirportStore row, -1 for an unindexed departure, GOAL for the destination
+        final Node previous;
+        final int hops;          // Legs flown so far
+        final double distance;   // Distance flown so far (nm)
+        final double remaining;  // Great-circle distance left to the destination (nm)
+
+        Node(int row, Node previous, int hops, double distance, double remaining) {
+            this.row = row;
+            this.previous = previous;
+            this.hops = hops;
+            this.distance = distance;
+            this.remaining = remaining;
+        }
+    }
+
+    // Per-thread arrays indexed by store row, cleared after each search
+    private final class SearchState {
+        // A SIMD sweep costs about as much as this fraction of per-pair distance calls
+        private static final int SWEEP_FRACTION = 16;
+
+        final double[] remaining;   // Distance to the destination (nm), NaN until computed
+        final Node[] best;          // Best known path to each airport
+        final boolean[] closed;     // Airports already expanded
+        final int[] neighbors;      // Range query output
+        boolean sweptAll;           // remaining was filled by the kernel
+        private int computed;       // Heuristic values computed one by one
+        private int[] touched = new int[64];
+        private int touchedCount;
+
+        SearchState(int size) {
+            remaining = new double[size];
+            best = new Node[size];
+            closed = new boolean[size];
+            neighbors = new int[size];
+            Arrays.fill(remaining, Double.NaN);
+        }
+
+        // Distance from a row to the destination, computed on first use
+        double remaining(int row, GeoPoint target) {
+            double value = remaining[row];
+            if (Double.isNaN(value) && !sweptAll && kernel.isVectorized()
+                    && ++computed > remaining.length / SWEEP_FRACTION) {
+                // The search is wide enough that one pass over every airport is cheaper
+                kernel.distances(store, target, remaining);
+                sweptAll = true;
+                value = remaining[row];
+            }
+            if (Double.isNaN(value)) {
+                value = GreatCircle.distance(store.airport(row).getGeo(), target);
+                remaining[row] = value;
+                touch(row);
+            }
+            return value;
+        }
+
+        void record(int row, Node node) {
+            if (best[row] == null) {
+                touch(row);
+            }
+            best[row] = node;
+        }
+
+        private void touch(int row) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = row;
+        }
+
+        // Clears only the rows this search touched, or everything after a full sweep
+        void reset() {
+            if (sweptAll) {
+                Arrays.fill(remaining, Double.NaN);
+                sweptAll = false;
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                int row = touched[i];
+                best[row] = null;
+                closed[row] = false;
+                remaining[row] = Double.NaN;
+            }
+            touchedCount = 0;
+            computed = 0;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+/**
+ * Paged user file with one fixed-size slot per user.
+ *
+ * Layout (little endian), in PAGE_SIZE pages:
+ *   Page 0, header:    magic "USRP", version (u16), reserved (u16), page size (i32),
+ *                      slot size (i32), slot count (i32), live count (i32),
+ *                      first free slot (i32, -1 if none), next user id (i32)
+ *   Pages 1..n:        SLOT_SIZE slots, so a slot never spans two pages:
+ *                      state (i32, 0 free / 1 used), user id (i32), next free slot (i32),
+ *                      then email, phone, first name, last name, address and password,
+ *                      each as length (u16) followed by UTF-8 bytes
+ *
+ * Deleted slots form a linked free list through their next-free field and
+ * are reused before the file grows. Adding, changing or deleting a user
+ * writes that user's slot and the header, never the rest of the file. Users
+ * are read one slot at a time; scan reads only the id, email and phone of
+ * each slot so indexes can be built without creating User objects.
+ * Not thread-safe; the owning database serializes access.
+ */
+public final class UserRecordFile implements AutoCloseable {
+    // Format identification
+    public static final int MAGIC = 0x50525355; // "USRP" read as a little-endian int
+    public static final int VERSION = 1;
+
+    // Page and slot sizes; a slot fits the longest user the forms accept, at 3 UTF-8 bytes per char
+    private static final int PAGE_SIZE = 4096;
+    private static final int SLOT_SIZE = 512;
+    private static final int SLOTS_PER_PAGE = PAGE_SIZE / SLOT_SIZE;
+    private static final int SLOT_HEADER = 12;
+    // Pages read at a time while scanning
+    private static final int SCAN_PAGES = 64;
+
+    // Header field offsets
+    private static final int SLOT_COUNT = 16;
+    private static final int LIVE_COUNT = 20;
+    private static final int FREE_HEAD = 24;
+    private static final int NEXT_ID = 28;
+    private static final int HEADER_LENGTH = 32;
+
+    private static final int FREE = 0;
+    private static final int USED = 1;
+    private static final int NO_SLOT = -1;
+
+    /**
+     * Receives the indexed fields of each used slot during a scan
+     */
+    public interface SlotVisitor {
+        void visit(int slot, int id, String email, String phone);
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer slotBuffer = ByteBuffer.allocate(SLOT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    private int slotCount;
+    private int liveCount;
+    private int freeHead;
+    private int nextId;
+
+    private UserRecordFile(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Checks whether a file is in this format
+     * @param path The file to check
+     * @return true if the file starts with the format's magic number
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isRecordFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // Keep reading until four bytes arrive or the file ends
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Opens a user file for reading and writing, creating an empty one if it does not exist
+     * @param path The file to open
+     * @return The opened file
+     * @throws IOException if the file cannot be opened or is not a supported version
+     */
+    public static UserRecordFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        UserRecordFile file = new UserRecordFile(channel);
+        try {
+            if (channel.size() == 0) {
+                file.freeHead = NO_SLOT;
+                file.nextId = 1;
+                file.writeHeader();
+            } else {
+                file.readHeader(path);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Writes users to a new file, replacing any existing one atomically
+     * @param path The file to write
+     * @param users The users to store; ones without an id are numbered after the highest id
+     * @throws IOException if the file cannot be written or a user does not fit in a slot
+     */
+    public static void write(Path path, Collection<User> users) throws IOException {
+        int nextId = 1;
+        for (User user : users) {
+            nextId = Math.max(nextId, user.getId() + 1);
+        }
+        // Write beside the target, then swap it in so readers never see a partial file
+        Path target = path.toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.deleteIfExists(temp);
+        try (UserRecordFile file = open(temp)) {
+            for (User user : users) {
+                file.insert(user.getId() > 0 ? user : user.withId(nextId++));
+            }
+            file.nextId = Math.max(file.nextId, nextId);
+            file.writeHeader();
+            file.force();
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Converts a serialized user database into this format, keeping a backup
+     * @param source Serialized UserDatabase written by ObjectOutputStream
+     * @param target The file to write (may be the same as source)
+     * @return Number of users converted
+     * @throws IOException if either file cannot be accessed
+     * @throws ClassNotFoundException if the serialized file holds unknown classes
+     */
+    public static int migrate(Path source, Path target) throws IOException, ClassNotFoundException {
+        if (isRecordFile(source)) {
+            throw new IOException("Already a paged user file: " + source);
+        }
+        UserDatabase db;
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(source.toFile()))) {
+            Object obj = ois.readObject();
+            if (!(obj instanceof UserDatabase)) {
+                throw new IOException("Unexpected object type in user file: " + obj.getClass());
+            }
+            db = (UserDatabase) obj;
+        }
+        Files.copy(source, source.resolveSibling(source.getFileName() + ".bak"), StandardCopyOption.REPLACE_EXISTING);
+        write(target, db.getAllUsers());
+        return db.size();
+    }
+
+    // Counters kept in the header
+    public int slotCount() { return slotCount; }
+    public int size() { return liveCount; }
+    public int nextId() { return nextId; }
+
+    /**
+     * Reads the indexed fields of every used slot, page by page
+     * @param visitor Told the slot, id, email and phone of each user
+     * @throws IOException if the file cannot be read
+     */
+    public void scan(SlotVisitor visitor) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(SCAN_PAGES * PAGE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int pages = (slotCount + SLOTS_PER_PAGE - 1) / SLOTS_PER_PAGE;
+        for (int page = 0; page < pages; page += SCAN_PAGES) {
+            // The last page may be only partly filled with slots
+            int firstSlot = page * SLOTS_PER_PAGE;
+            int slots = Math.min(SCAN_PAGES * SLOTS_PER_PAGE, slotCount - firstSlot);
+            chunk.clear();
+            chunk.limit(slots * SLOT_SIZE);
+            readFully(chunk, offset(firstSlot));
+            for (int i = 0; i < slots; i++) {
+                int base = i * SLOT_SIZE;
+                if (chunk.getInt(base) != USED) {
+                    continue;
+                }
+                chunk.position(base + SLOT_HEADER);
+                String email = readString(chunk);
+                String phone = readString(chunk);
+                visitor.visit(firstSlot + i, chunk.getInt(base + 4), email, phone);
+            }
+        }
+    }
+
+    /**
+     * Reads the user in a slot
+     * @param slot The slot number
+     * @return The user, or null if the slot is free
+     * @throws IOException if the file cannot be read
+     */
+    public User read(int slot) throws IOException {
+        checkSlot(slot);
+        slotBuffer.clear();
+        readFully(slotBuffer, offset(slot));
+        if (slotBuffer.getInt(0) != USED) {
+            return null;
+        }
+        int id = slotBuffer.getInt(4);
+        slotBuffer.position(SLOT_HEADER);
+        String email = readString(slotBuffer);
+        String phone = readString(slotBuffer);
+        String firstName = readString(slotBuffer);
+        String lastName = readString(slotBuffer);
+        String address = readString(slotBuffer);
+        String password = readString(slotBuffer);
+        return new User(firstName, lastName, phone, address, email, password).withId(id);
+    }
+
+    /**
+     * Stores a user in a free slot, reusing deleted slots first
+     * @param user The user to store; must already have an id
+     * @return The slot the user was written to
+     * @throws IOException if the file cannot be written or the user does not fit in a slot
+     */
+    public int insert(User user) throws IOException {
+        encode(user); // Fail before touching the free list if the user does not fit
+        int slot;
+        if (freeHead != NO_SLOT) {
+            slot = freeHead;
+            slotBuffer.clear();
+            readFully(slotBuffer, offset(slot));
+            freeHead = slotBuffer.getInt(8);
+        } else {
+            slot = slotCount++;
+        }
+        writeSlot(slot, user);
+        liveCount++;
+        nextId = Math.max(nextId, user.getId() + 1);
+        writeHeader();
+        return slot;
+    }
+
+    /**
+     * Replaces the user in a used slot
+     * @param slot The slot number
+     * @param user The new values
+     * @throws IOException if the file cannot be written or the user does not fit in a slot
+     */
+    public void update(int slot, User user) throws IOException {
+        checkSlot(slot);
+        writeSlot(slot, user);
+    }
+
+    /**
+     * Frees a slot for reuse
+     * @param slot The slot number
+     * @throws IOException if the file cannot be written
+     */
+    public void delete(int slot) throws IOException {
+        checkSlot(slot);
+        slotBuffer.clear();
+        slotBuffer.putInt(FREE).putInt(0).putInt(freeHead);
+        while (slotBuffer.hasRemaining()) {
+            slotBuffer.put((byte) 0);
+        }
+        slotBuffer.flip();
+        writeFully(slotBuffer, offset(slot));
+        freeHead = slot;
+        liveCount--;
+        writeHeader();
+    }
+
+    /**
+     * Forces written slots to the storage device
+     * @throws IOException if the file cannot be synced
+     */
+    public void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeSlot(int slot, User user) throws IOException {
+        ByteBuffer encoded = encode(user);
+        writeFully(encoded, offset(slot));
+    }
+
+    // Encodes a user into the slot buffer, zero-padded to the full slot
+    private ByteBuffer encode(User user) throws IOException {
+        slotBuffer.clear();
+        slotBuffer.putInt(USED).putInt(user.getId()).putInt(NO_SLOT);
+        String[] fields = {
+            user.getEmailAddress(), user.getPhoneNumber(), user.getFirstName(),
+            user.getLastName(), user.getHomeAddress(), user.getPassword()
+        };
+        for (String field : fields) {
+            byte[] bytes = (field == null ? "" : field).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length + 2 > slotBuffer.remaining()) {
+                throw new IOException("User " + user.getEmailAddress() + " is too long for a " + SLOT_SIZE + "-byte record");
+            }
+            slotBuffer.putShort((short) bytes.length).put(bytes);
+        }
+        while (slotBuffer.hasRemaining()) {
+            slotBuffer.put((byte) 0);
+        }
+        slotBuffer.flip();
+        return slotBuffer;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private void readHeader(Path path) throws IOException {
+        header.clear();
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a paged user file: " + path);
+        }
+        int version = header.getShort(4) & 0xFFFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported user file version " + version + ": " + path);
+        }
+        slotCount = header.getInt(SLOT_COUNT);
+        liveCount = header.getInt(LIVE_COUNT);
+        freeHead = header.getInt(FREE_HEAD);
+        nextId = header.getInt(NEXT_ID);
+        if (header.getInt(8) != PAGE_SIZE || header.getInt(12) != SLOT_SIZE || slotCount < 0
+                || liveCount < 0 || liveCount > slotCount || freeHead < NO_SLOT || freeHead >= slotCount
+                || channel.size() < offset(slotCount)) {
+            throw new IOException("Corrupt user file header: " + path);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        header.clear();
+        header.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0)
+              .putInt(PAGE_SIZE).putInt(SLOT_SIZE).putInt(slotCount).putInt(liveCount)
+              .putInt(freeHead).putInt(nextId);
+        header.flip();
+        writeFully(header, 0);
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= slotCount) {
+            throw new IndexOutOfBoundsException("User slot " + slot + " of " + slotCount);
+        }
+    }
+
+    // Slots start on the page after the header, SLOTS_PER_PAGE to a page
+    private static long offset(int slot) {
+        return (long) PAGE_SIZE + (long) slot * SLOT_SIZE;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of user file at " + position);
+            }
+            position += read;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -1,6 +1,15 @@
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import javax.swing.*;
 
 public class Userclass {
@@ -15,52 +24,56 @@ public class Userclass {
     public Userclass() {
         System.out.println("Initializing database...");
         this.userDbase = loadDatabase();
-        System.out.println("Database ready. Contains " + userDbase.getAllUsers().size() + " users");
+        System.out.println("Database ready. Contains " + userDbase.size() + " users");
     }
     
+    // Opens the paged user file, converting an old serialized database first
     public UserDatabase loadDatabase() {
         File dbFile = new File(DB_FILE);
+        Path path = dbFile.toPath();
         System.out.println("Database file location: " + dbFile.getAbsolutePath());
         
-        if (!dbFile.exists()) {
-            System.out.println("No database found. Creating new database file...");
-            UserDatabase newDb = new UserDatabase();
-            saveDatabase(newDb);
-            return newDb;
-        }
-        
-        if (dbFile.length() == 0) {
-            System.out.println("Empty database file detected. Creating new database...");
-            UserDatabase newDb = new UserDatabase();
-            saveDatabase(newDb);
-            return newDb;
-        }
-        
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(DB_FILE))) {
-            UserDatabase loadedDb = (UserDatabase) ois.readObject();
+        try {
+            if (!dbFile.exists()) {
+                System.out.println("No database found. Creating new database file...");
+            } else if (dbFile.length() == 0) {
+                System.out.println("Empty database file detected. Creating new database...");
+                Files.delete(path);
+            } else if (!UserRecordFile.isRecordFile(path)) {
+                int converted = UserRecordFile.migrate(path, path);
+                System.out.println("Converted " + converted + " users to the paged format (original kept as " +
+                                   DB_FILE + ".bak)");
+            }
+            UserDatabase db = UserDatabase.open(UserRecordFile.open(path));
             System.out.println("Database loaded successfully");
-            return loadedDb;
-        } catch (IOException | ClassNotFoundException e) {
+            return db;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
             System.out.println("Error loading database: " + e.getMessage());
             System.out.println("Creating new database as recovery...");
-            UserDatabase newDb = new UserDatabase();
-            saveDatabase(newDb);
-            return newDb;
+            try {
+                // Keep the unreadable file for inspection rather than overwriting it
+                Files.move(path, path.resolveSibling(DB_FILE + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+                return UserDatabase.open(UserRecordFile.open(path));
+            } catch (IOException recoveryError) {
+                reportSaveError(recoveryError);
+                return new UserDatabase();
+            }
         }
     }
     
-    private void saveDatabase(UserDatabase db) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DB_FILE))) {
-            oos.writeObject(db);
-            System.out.println("Database saved successfully");
-        } catch (IOException e) {
-            System.out.println("CRITICAL ERROR: Failed to save database!");
-            System.out.println("Error details: " + e.getMessage());
-        }
+    private static void reportSaveError(IOException e) {
+        System.out.println("CRITICAL ERROR: Failed to save database!");
+        System.out.println("Error details: " + e.getMessage());
+        JOptionPane.showMessageDialog(null, "Failed to save database: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
     }
     
-    private void saveDatabase() {
-        saveDatabase(this.userDbase);
+    // Forces every written change to disk
+    public void flush() {
+        try {
+            userDbase.flush();
+        } catch (IOException e) {
+            reportSaveError(e);
+        }
     }
     
     public void add() {
@@ -141,8 +154,12 @@ public class Userclass {
         
         if (confirmation == JOptionPane.YES_OPTION) {
             User user = new User(fname, lname, pnumber, haddress, eaddress, password);
-            userDbase.addUser(user);
-            saveDatabase();
+            try {
+                userDbase.addUser(user);
+            } catch (IOException e) {
+                reportSaveError(e);
+                return;
+            }
             JOptionPane.showMessageDialog(null, "Registration successful!");
         } else {
             JOptionPane.showMessageDialog(null, "Registration cancelled.");
@@ -150,7 +167,7 @@ public class Userclass {
     }
 
     public void modify() {
-        if (userDbase.getAllUsers().isEmpty()) {
+        if (userDbase.isEmpty()) {
             JOptionPane.showMessageDialog(null, "Error: No users in database!");
             return;
         }
@@ -241,13 +258,17 @@ public class Userclass {
             user.getPassword()
         );
         
-        userDbase.updateUser(user, updatedUser);
-        saveDatabase();
+        try {
+            userDbase.updateUser(user, updatedUser);
+        } catch (IOException e) {
+            reportSaveError(e);
+            return;
+        }
         JOptionPane.showMessageDialog(null, "Profile updated successfully!");
     }
 
     public void delete() {
-        if (userDbase.getAllUsers().isEmpty()) {
+        if (userDbase.isEmpty()) {
             JOptionPane.showMessageDialog(null, "Error: No users in database!");
             return;
         }
@@ -272,8 +293,12 @@ public class Userclass {
             "Confirm Deletion", JOptionPane.YES_NO_OPTION);
         
         if (confirmation == JOptionPane.YES_OPTION) {
-            userDbase.deleteUser(user);
-            saveDatabase();
+            try {
+                userDbase.deleteUser(user);
+            } catch (IOException e) {
+                reportSaveError(e);
+                return;
+            }
             JOptionPane.showMessageDialog(null, "Account deleted successfully!");
         } else {
             JOptionPane.showMessageDialog(null, "Deletion cancelled.");
@@ -310,6 +335,7 @@ public class Userclass {
                 "User Management System\n1. Add User\n2. Modify User\n3. Delete User\n4. Exit\n\nEnter your choice (or secret code for admin options):");
             
             if (input == null || input.equals("4")) {
+                flush();
                 JOptionPane.showMessageDialog(null, "Exiting...");
                 return;
             }
@@ -327,6 +353,7 @@ public class Userclass {
                     case 2 -> modify();
                     case 3 -> delete();
                     case 4 -> {
+                        flush();
                         JOptionPane.showMessageDialog(null, "Exiting...");
                         return;
                     }
@@ -347,61 +374,244 @@ public class Userclass {
 
 class UserDatabase implements Serializable {
     private static final long serialVersionUID = 1L;
-    private final List<User> users;
+    // Keeps the original serialized form, a list of users, so old database files can still be converted
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("users", List.class)
+    };
+    // Slot value for users that are not stored in a file
+    private static final int NO_SLOT = -1;
+
+    // Record file slot of each user id, in registration order
+    private transient Map<Integer, Integer> slots;
+    // Users read so far by id; every user when the database is not backed by a file
+    private transient Map<Integer, User> loaded;
+    // Hash indexes from normalized email and phone number to user id
+    private transient NormalizedKeyIndex emailIndex;
+    private transient NormalizedKeyIndex phoneIndex;
+    private transient int nextId;
+    // Paged file the users are stored in, or null for an in-memory database
+    private transient UserRecordFile store;
     
     public UserDatabase() {
-        this.users = new ArrayList<>();
+        this(Collections.emptyList());
+    }
+    
+    // Builds an in-memory store from a list of users, giving ids to any that were saved without one
+    private UserDatabase(List<User> initial) {
+        init(initial.size(), 1);
+        for (User user : initial) {
+            nextId = Math.max(nextId, user.getId() + 1);
+        }
+        for (User user : initial) {
+            User stored = user.getId() > 0 && !slots.containsKey(user.getId()) ? user : user.withId(nextId++);
+            loaded.put(stored.getId(), stored);
+            index(stored, NO_SLOT);
+        }
+    }
+    
+    private UserDatabase(UserRecordFile store) {
+        this.store = store;
+        init(store.size(), store.nextId());
+    }
+    
+    /**
+     * Opens a database over a paged user file
+     * Only the id, email and phone of each user are read now, to build the
+     * indexes; the rest of a user is read from its slot when first needed.
+     */
+    public static UserDatabase open(UserRecordFile store) throws IOException {
+        UserDatabase db = new UserDatabase(store);
+        // Collect (id, slot) pairs so users are listed in id order, which is registration order
+        long[] entries = new long[store.size()];
+        int[] count = new int[1];
+        store.scan((slot, id, email, phone) -> {
+            if (count[0] == entries.length) {
+                throw new IllegalStateException("User file holds more users than its header records");
+            }
+            entries[count[0]++] = ((long) id << 32) | slot;
+            db.emailIndex.add(normalizeEmail(email), id);
+            db.phoneIndex.add(normalizePhone(phone), id);
+        });
+        Arrays.sort(entries, 0, count[0]);
+        for (int i = 0; i < count[0]; i++) {
+            db.slots.put((int) (entries[i] >>> 32), (int) entries[i]);
+        }
+        return db;
+    }
+    
+    private void init(int expectedSize, int firstId) {
+        int capacity = Math.max(16, expectedSize * 4 / 3 + 1);
+        slots = new LinkedHashMap<>(capacity);
+        loaded = new HashMap<>(store == null ? capacity : 16);
+        emailIndex = new NormalizedKeyIndex(expectedSize);
+        phoneIndex = new NormalizedKeyIndex(expectedSize);
+        nextId = firstId;
     }
     
     public boolean userExists(String fname, String lname, String pnumber, String haddress, String eaddress) {
-        return users.stream().anyMatch(user -> 
+        // Emails are unique, so only the user holding this email can match every field
+        User user = getUserByEmail(eaddress);
+        return user != null &&
             user.getFirstName().equalsIgnoreCase(fname) &&
             user.getLastName().equalsIgnoreCase(lname) &&
             user.getPhoneNumber().equals(pnumber) &&
-            user.getHomeAddress().equalsIgnoreCase(haddress) &&
-            user.getEmailAddress().equalsIgnoreCase(eaddress)
-        );
+            user.getHomeAddress().equalsIgnoreCase(haddress);
     }
     
     public boolean phoneNumberExists(String phoneNumber) {
-        return users.stream().anyMatch(user -> user.getPhoneNumber().equals(phoneNumber));
+        return phoneIndex.contains(normalizePhone(phoneNumber));
     }
     
     public boolean emailExists(String email) {
-        return users.stream().anyMatch(user -> user.getEmailAddress().equalsIgnoreCase(email));
+        return emailIndex.contains(normalizeEmail(email));
     }
     
-    public void addUser(User user) {
-        users.add(user);
+    // Adds a user under a new id, writing only its slot when file-backed, and returns the stored copy
+    public User addUser(User user) throws IOException {
+        User stored = user.withId(nextId);
+        int slot = store != null ? store.insert(stored) : NO_SLOT;
+        nextId++;
+        loaded.put(stored.getId(), stored);
+        index(stored, slot);
+        return stored;
     }
     
     public User getUserByEmail(String email) {
-        return users.stream()
-            .filter(user -> user.getEmailAddress().equalsIgnoreCase(email))
-            .findFirst()
-            .orElse(null);
+        Integer id = emailIndex.get(normalizeEmail(email));
+        return id == null ? null : getUserById(id);
     }
     
-    public void updateUser(User oldUser, User updatedUser) {
-        for (int i = 0; i < users.size(); i++) {
-            if (users.get(i).getEmailAddress().equalsIgnoreCase(oldUser.getEmailAddress())) {
-                users.set(i, updatedUser);
-                return;
+    public User getUserById(int id) {
+        User user = loaded.get(id);
+        Integer slot = slots.get(id);
+        if (user == null && slot != null && store != null) {
+            try {
+                user = store.read(slot);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read user " + id, e);
+            }
+            if (user != null) {
+                loaded.put(id, user);
             }
         }
+        return user;
     }
     
-    public void deleteUser(User user) {
-        users.removeIf(u -> u.getEmailAddress().equalsIgnoreCase(user.getEmailAddress()));
+    // Replaces a user, keeping its id, slot and position; returns the stored copy or null if the user is gone
+    public User updateUser(User oldUser, User updatedUser) throws IOException {
+        User current = find(oldUser);
+        if (current == null) {
+            return null;
+        }
+        int slot = slots.get(current.getId());
+        User stored = updatedUser.withId(current.getId());
+        if (store != null) {
+            store.update(slot, stored);
+        }
+        unindex(current);
+        loaded.put(stored.getId(), stored);
+        index(stored, slot);
+        return stored;
     }
     
+    public void deleteUser(User user) throws IOException {
+        User current = find(user);
+        if (current == null) {
+            return;
+        }
+        int slot = slots.get(current.getId());
+        if (store != null) {
+            store.delete(slot);
+        }
+        unindex(current);
+        slots.remove(current.getId());
+        loaded.remove(current.getId());
+    }
+    
+    // Lists every user in registration order, reading any not loaded yet
     public List<User> getAllUsers() {
-        return new ArrayList<>(users);
+        List<User> all = new ArrayList<>(slots.size());
+        for (Integer id : slots.keySet()) {
+            all.add(getUserById(id));
+        }
+        return all;
+    }
+    
+    public int size() {
+        return slots.size();
+    }
+    
+    public boolean isEmpty() {
+        return slots.isEmpty();
+    }
+    
+    // Forces file-backed changes to disk
+    public void flush() throws IOException {
+        if (store != null) {
+            store.force();
+        }
+    }
+    
+    // Finds the stored user for a user object, by id or, for users without one, by email
+    private User find(User user) {
+        User current = user.getId() > 0 ? getUserById(user.getId()) : null;
+        return current != null ? current : getUserByEmail(user.getEmailAddress());
+    }
+    
+    private void index(User user, int slot) {
+        slots.put(user.getId(), slot);
+        emailIndex.add(normalizeEmail(user.getEmailAddress()), user.getId());
+        phoneIndex.add(normalizePhone(user.getPhoneNumber()), user.getId());
+    }
+    
+    private void unindex(User user) {
+        emailIndex.remove(normalizeEmail(user.getEmailAddress()), user.getId());
+        phoneIndex.remove(normalizePhone(user.getPhoneNumber()), user.getId());
+    }
+    
+    // Case-folds an email the same way equalsIgnoreCase compares it
+    private static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+    
+    // Keeps only the digits of a phone number
+    private static String normalizePhone(String phoneNumber) {
+        if (phoneNumber == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+    
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("users", getAllUsers());
+        out.writeFields();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        List<User> saved = (List<User>) fields.get("users", null);
+        UserDatabase read = new UserDatabase(saved == null ? Collections.<User>emptyList() : saved);
+        slots = read.slots;
+        loaded = read.loaded;
+        emailIndex = read.emailIndex;
+        phoneIndex = read.phoneIndex;
+        nextId = read.nextId;
     }
 }
 
 class User implements Serializable {
     private static final long serialVersionUID = 1L;
+    // Stable id given by UserDatabase; 0 until the user is stored (and in files saved before ids existed)
+    private final int id;
     private final String firstName;
     private final String lastName;
     private final String phoneNumber;
@@ -410,6 +620,11 @@ class User implements Serializable {
     private final String password;
     
     public User(String fname, String lname, String pnumber, String haddress, String eaddress, String password) {
+        this(0, fname, lname, pnumber, haddress, eaddress, password);
+    }
+    
+    private User(int id, String fname, String lname, String pnumber, String haddress, String eaddress, String password) {
+        this.id = id;
         this.firstName = fname;
         this.lastName = lname;
         this.phoneNumber = pnumber;
@@ -418,10 +633,16 @@ class User implements Serializable {
         this.password = password;
     }
     
+    // Returns this user with a different id; users are immutable
+    User withId(int newId) {
+        return newId == id ? this : new User(newId, firstName, lastName, phoneNumber, homeAddress, emailAddress, password);
+    }
+    
     public boolean verifyPassword(String inputPassword) {
         return this.password.equals(inputPassword);
     }
     
+    public int getId() { return id; }
     public String getFirstName() { return firstName; }
     public String getLastName() { return lastName; }
     public String getPhoneNumber() { return phoneNumber; }
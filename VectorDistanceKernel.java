@@ -0,0 +1,55 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD one-to-many distance kernel built on the incubating Vector API.
+ * Loaded reflectively by DistanceKernel, so the rest of the planner compiles
+ * and runs without the incubator module. Compile and run this class with
+ * --add-modules jdk.incubator.vector to enable it.
+ */
+final class VectorDistanceKernel extends DistanceKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public String getName() {
+        return "vector x" + SPECIES.length();
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public void distances(AirportStore store, GeoPoint source, double[] out) {
+        double[] xs = store.xs();
+        double[] ys = store.ys();
+        double[] zs = store.zs();
+        int n = store.size();
+        double scale = GreatCircle.EARTH_RADIUS_NM * 2;
+
+        // Full vector lanes: distance = 2R * asin(|p - q| / 2)
+        int i = 0;
+        int upper = SPECIES.loopBound(n);
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, xs, i).sub(source.x);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, ys, i).sub(source.y);
+            DoubleVector dz = DoubleVector.fromArray(SPECIES, zs, i).sub(source.z);
+            DoubleVector chordSq = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz)).min(4.0);
+            chordSq.sqrt()
+                   .mul(0.5)
+                   .lanewise(VectorOperators.ASIN)
+                   .mul(scale)
+                   .intoArray(out, i);
+        }
+
+        // Remaining airports that do not fill a whole vector
+        for (; i < n; i++) {
+            double dx = xs[i] - source.x;
+            double dy = ys[i] - source.y;
+            double dz = zs[i] - source.z;
+            out[i] = distanceFromChord(dx * dx + dy * dy + dz * dz);
+        }
+    }
+}